@@ -0,0 +1,25 @@
+package command;
+
+import datastructures.priorityqueue.PersistentHeapPriorityQueue;
+
+/**
+ * Class to support adding an element to a PersistentHeapPriorityQueue and
+ * support undoing it.
+ * @param <E> Type of element to be added to the queue
+ */
+public class AddToPersistentPriorityQueueCommand<E>
+        extends PersistentPriorityQueueCommand<E> {
+
+    private E elementToBeAdded;
+
+    public AddToPersistentPriorityQueueCommand(
+            PersistentHeapPriorityQueue<E> priorityQueue, E elementToBeAdded) {
+        super(priorityQueue);
+        this.elementToBeAdded = elementToBeAdded;
+    }
+
+    @Override
+    protected void apply() {
+        priorityQueue.add(elementToBeAdded);
+    }
+}
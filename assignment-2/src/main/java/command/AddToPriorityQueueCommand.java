@@ -1,6 +1,7 @@
 package command;
 
 import datastructures.priorityqueue.HeapPriorityQueue;
+import datastructures.priorityqueue.QueueHandle;
 
 /**
  * Class to support adding an element from the queue and support undoing it.
@@ -12,7 +13,11 @@ public class AddToPriorityQueueCommand<E> implements ICommand {
     // AbstractQueue<E> does not have an interface that can support undoing
     private HeapPriorityQueue<E> priorityQueue;
     private E elementToBeAdded;
-    private int elementIndex;
+
+    // The handle keeps track of the position of the added element, even when
+    // later commands move it around in the heap, so undo removes exactly the
+    // element that this command added.
+    private QueueHandle<E> elementHandle;
 
     public AddToPriorityQueueCommand(HeapPriorityQueue<E> priorityQueue,
                                      E elementToBeAdded) {
@@ -20,14 +25,34 @@ public class AddToPriorityQueueCommand<E> implements ICommand {
         this.elementToBeAdded = elementToBeAdded;
     }
 
+    // Creates a command that has already added the element of the given
+    // handle.
+    AddToPriorityQueueCommand(HeapPriorityQueue<E> priorityQueue,
+                              QueueHandle<E> elementHandle) {
+        this(priorityQueue, elementHandle.getElement());
+        this.elementHandle = elementHandle;
+    }
+
     @Override
     public void execute() {
-        priorityQueue.add(elementToBeAdded);
-        elementIndex = priorityQueue.indexOf(elementToBeAdded);
+        elementHandle = priorityQueue.addWithHandle(elementToBeAdded);
     }
 
     @Override
     public void undo() {
-        priorityQueue.removeAtIndex(elementIndex);
+        priorityQueue.removeByHandle(elementHandle);
+    }
+
+
+    HeapPriorityQueue<E> getPriorityQueue() {
+        return priorityQueue;
+    }
+
+    E getElement() {
+        return elementToBeAdded;
+    }
+
+    QueueHandle<E> getHandle() {
+        return elementHandle;
     }
 }
@@ -0,0 +1,105 @@
+package command;
+
+import datastructures.priorityqueue.HeapPriorityQueue;
+import datastructures.priorityqueue.QueueHandle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Class to support adding and removing many elements of a queue as one
+ * command, which is also undone as one command.
+ * All elements are added first, and then the given number of top priority
+ * elements are removed. The elements are added with addAll, so a large batch
+ * costs one rebuild of the heap instead of one percolation per element.
+ * Undoing the command puts the removed elements back and takes the added
+ * elements out again, each in one bulk operation on the queue.
+ * @param <E> Type of element to be added to and removed from the queue
+ */
+public class BatchPriorityQueueCommand<E> implements ICommand {
+
+    // Using HeapPriorityQueue<E> instead of AbstractQueue<E> since
+    // AbstractQueue<E> does not have an interface that can support undoing
+    private HeapPriorityQueue<E> priorityQueue;
+    private List<E> elementsToBeAdded;
+    private int removalCount;
+
+    // Handles of the added and removed elements, so that undo affects exactly
+    // the elements of this batch.
+    private List<QueueHandle<E>> addedHandles;
+    private List<QueueHandle<E>> removedHandles;
+
+    /**
+     * @param elementsToBeAdded Elements that are added to the queue
+     * @param removalCount Number of top priority elements that are removed
+     * after the elements were added
+     */
+    public BatchPriorityQueueCommand(HeapPriorityQueue<E> priorityQueue,
+                                     Collection<? extends E> elementsToBeAdded,
+                                     int removalCount) {
+        if(removalCount < 0) {
+            throw new IllegalArgumentException(
+                    "The number of removed elements cannot be negative!");
+        }
+        this.priorityQueue = priorityQueue;
+        this.elementsToBeAdded = new ArrayList<>(elementsToBeAdded);
+        this.removalCount = removalCount;
+    }
+
+    // Creates a command that has already added and removed the elements of
+    // the given handles.
+    BatchPriorityQueueCommand(HeapPriorityQueue<E> priorityQueue,
+                              List<QueueHandle<E>> addedHandles,
+                              List<QueueHandle<E>> removedHandles) {
+        this.priorityQueue = priorityQueue;
+        this.elementsToBeAdded = new ArrayList<>(addedHandles.size());
+        for(QueueHandle<E> handle : addedHandles) {
+            elementsToBeAdded.add(handle.getElement());
+        }
+        this.removalCount = removedHandles.size();
+        this.addedHandles = addedHandles;
+        this.removedHandles = removedHandles;
+    }
+
+    @Override
+    public void execute() {
+        addedHandles = priorityQueue.addAllWithHandles(elementsToBeAdded);
+        removedHandles = new ArrayList<>(removalCount);
+        for(int i = 0; i < removalCount; i++) {
+            QueueHandle<E> handle = priorityQueue.pollHandle();
+            // Nothing more can be removed once the queue is empty:
+            if(handle == null) break;
+            removedHandles.add(handle);
+        }
+    }
+
+    @Override
+    public void undo() {
+        // The removed elements are put back first, since some of them may
+        // have been added by this batch as well.
+        priorityQueue.reinsertAll(removedHandles);
+        priorityQueue.removeAllByHandle(addedHandles);
+    }
+
+
+    HeapPriorityQueue<E> getPriorityQueue() {
+        return priorityQueue;
+    }
+
+    List<E> getElementsToBeAdded() {
+        return elementsToBeAdded;
+    }
+
+    int getRemovalCount() {
+        return removalCount;
+    }
+
+    List<QueueHandle<E>> getAddedHandles() {
+        return addedHandles;
+    }
+
+    List<QueueHandle<E>> getRemovedHandles() {
+        return removedHandles;
+    }
+}
@@ -0,0 +1,158 @@
+package command;
+
+import datastructures.priorityqueue.HeapPriorityQueue;
+import datastructures.priorityqueue.QueueSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EmptyStackException;
+import java.util.function.ToLongFunction;
+
+/**
+ * A CommandProcessor with a bounded history, that can still undo further
+ * back than its history reaches.
+ *
+ * Every checkpointInterval commands, the processor takes a snapshot of its
+ * queue, keeping only the latest maxCheckpoints snapshots. Once all commands
+ * in the history have been undone, the next undo restores the latest
+ * checkpoint instead. This undoes all commands back to that checkpoint in
+ * one step, so undo becomes coarser beyond the history, and it cannot go
+ * back further than the oldest checkpoint that is kept.
+ *
+ * Every checkpoint holds a copy of the whole queue, so the interval should
+ * be large compared to the maximum depth of the history.
+ *
+ * NOTE 1: The commands executed with this processor must only change its
+ * queue.
+ * NOTE 2: This class is not thread safe, just like the CommandProcessor.
+ * @param <E> Type of the elements in the queue
+ */
+public class CheckpointingCommandProcessor<E> extends CommandProcessor {
+
+    private HeapPriorityQueue<E> priorityQueue;
+
+    // Number of commands that are currently in effect, i.e. that have been
+    // executed and not undone, including the ones that were dropped from the
+    // history. Checkpoints are taken at one of these positions.
+    private long position = 0;
+
+    // Oldest first. A checkpoint restores the queue to the state it was in
+    // at its position.
+    private Deque<Checkpoint<E>> checkpoints = new ArrayDeque<>();
+    private int checkpointInterval;
+    private int maxCheckpoints;
+    private int commandsSinceCheckpoint = 0;
+
+
+    /**
+     * Creates a processor that only keeps the latest maxDepth commands in its
+     * history, and takes a checkpoint of the queue every checkpointInterval
+     * commands.
+     */
+    public CheckpointingCommandProcessor(HeapPriorityQueue<E> priorityQueue,
+                                         int maxDepth,
+                                         int checkpointInterval,
+                                         int maxCheckpoints) {
+        super(maxDepth);
+        init(priorityQueue, checkpointInterval, maxCheckpoints);
+    }
+
+    /**
+     * Creates a processor whose history is limited to a total weight of
+     * commands (see CommandProcessor), and that takes a checkpoint of the
+     * queue every checkpointInterval commands.
+     * @param commandWeigher Calculates the weight of a command
+     */
+    public CheckpointingCommandProcessor(HeapPriorityQueue<E> priorityQueue,
+                                         long maxHistoryWeight,
+                                         ToLongFunction<ICommand>
+                                                 commandWeigher,
+                                         int checkpointInterval,
+                                         int maxCheckpoints) {
+        super(maxHistoryWeight, commandWeigher);
+        init(priorityQueue, checkpointInterval, maxCheckpoints);
+    }
+
+
+    @Override
+    public void execute(ICommand command) {
+        super.execute(command);
+        position++;
+
+        if(++commandsSinceCheckpoint >= checkpointInterval) {
+            takeCheckpoint();
+        }
+    }
+
+    /**
+     * Undoes the latest command in the history. If the history is empty, the
+     * latest checkpoint is restored instead.
+     * Throws an EmptyStackException if there is nothing left to undo.
+     */
+    @Override
+    public void undo() {
+        if(getHistorySize() == 0) {
+            restoreCheckpoint();
+            return;
+        }
+
+        position--;
+        // Checkpoints of states after this one can never be restored.
+        while(!checkpoints.isEmpty()
+                && checkpoints.peekLast().position > position) {
+            checkpoints.removeLast();
+        }
+        super.undo();
+    }
+
+
+    private void init(HeapPriorityQueue<E> priorityQueue,
+                      int checkpointInterval, int maxCheckpoints) {
+        if(checkpointInterval < 1 || maxCheckpoints < 1) {
+            throw new IllegalArgumentException("The checkpoint interval and"
+                    + " the number of checkpoints must be at least 1!");
+        }
+        this.priorityQueue = priorityQueue;
+        this.checkpointInterval = checkpointInterval;
+        this.maxCheckpoints = maxCheckpoints;
+    }
+
+    private void takeCheckpoint() {
+        commandsSinceCheckpoint = 0;
+        checkpoints.addLast(new Checkpoint<>(position,
+                priorityQueue.snapshot()));
+        if(checkpoints.size() > maxCheckpoints) {
+            checkpoints.removeFirst();
+        }
+    }
+
+    // Restores the latest checkpoint from before the current position. Since
+    // the history is empty, none of the commands after the checkpoint can be
+    // undone individually anymore.
+    private void restoreCheckpoint() {
+        while(!checkpoints.isEmpty()
+                && checkpoints.peekLast().position >= position) {
+            // The queue is already in the state of this checkpoint.
+            checkpoints.removeLast();
+        }
+        if(checkpoints.isEmpty()) {
+            throw new EmptyStackException();
+        }
+
+        Checkpoint<E> checkpoint = checkpoints.removeLast();
+        priorityQueue.restore(checkpoint.snapshot);
+        position = checkpoint.position;
+        commandsSinceCheckpoint = 0;
+    }
+
+
+    private static class Checkpoint<E> {
+        private final long position;
+        private final QueueSnapshot<E> snapshot;
+
+        private Checkpoint(long position, QueueSnapshot<E> snapshot) {
+            this.position = position;
+            this.snapshot = snapshot;
+        }
+    }
+}
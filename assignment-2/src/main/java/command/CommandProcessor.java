@@ -1,24 +1,158 @@
 package command;
 
-import java.util.Stack;
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.List;
+import java.util.function.ToLongFunction;
 
 /**
  * Class to help execute and undo commands.
+ *
+ * The history of executed commands is kept in a ring buffer, which can be
+ * limited to a maximum number of commands, or to a total weight of commands
+ * (for example an estimate of their size in bytes). Once the limit is
+ * reached, the oldest command is dropped for every new one, so that it, and
+ * the element it refers to, can be garbage collected.
+ *
+ * To still be able to undo further back than the history reaches, use a
+ * CheckpointingCommandProcessor, which also takes checkpoints of its queue.
+ *
+ * NOTE: This class is not thread safe. It does not lock, so commands must
+ * be executed and undone by one thread at a time.
  */
 public class CommandProcessor {
-    private Stack<ICommand> commandHistory;
 
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // The ring buffer of commands. The oldest command is at historyStart, and
+    // the newest one historySize - 1 slots after it (wrapping around).
+    private ICommand[] commandHistory = new ICommand[DEFAULT_CAPACITY];
+    private long[] commandWeights = new long[DEFAULT_CAPACITY];
+    private int historyStart = 0;
+    private int historySize = 0;
+
+    private long maxHistoryWeight;
+    private long historyWeight = 0;
+    private ToLongFunction<ICommand> commandWeigher;
+
+
+    /**
+     * Creates a processor that keeps every command in its history.
+     */
     public CommandProcessor() {
-        commandHistory = new Stack<>();
+        this(Long.MAX_VALUE, command -> 1);
+    }
+
+    /**
+     * Creates a processor that only keeps the latest maxDepth commands in its
+     * history.
+     */
+    public CommandProcessor(int maxDepth) {
+        this(checkMaxDepth(maxDepth), command -> 1);
     }
 
+    /**
+     * Creates a processor that drops the oldest commands from its history
+     * whenever the total weight of the commands in it would exceed
+     * maxHistoryWeight. The newest command is always kept, even if it is
+     * heavier than that on its own.
+     * @param commandWeigher Calculates the weight of a command
+     */
+    public CommandProcessor(long maxHistoryWeight,
+                            ToLongFunction<ICommand> commandWeigher) {
+        this.maxHistoryWeight = maxHistoryWeight;
+        this.commandWeigher = commandWeigher;
+    }
+
+
     public void execute(ICommand command) {
         command.execute();
-        commandHistory.push(command);
+        addToHistory(command);
     }
 
+    /**
+     * Undoes the latest command in the history.
+     * Throws an EmptyStackException if the history is empty.
+     */
     public void undo() {
-        ICommand command = commandHistory.pop();
+        if(historySize == 0) {
+            throw new EmptyStackException();
+        }
+
+        historySize--;
+        int index = (historyStart + historySize) % commandHistory.length;
+        ICommand command = commandHistory[index];
+        historyWeight -= commandWeights[index];
+        commandHistory[index] = null;
         command.undo();
     }
+
+    // Returns the commands that can be undone, oldest first. This is used by
+    // subclasses that have to save the history.
+    protected List<ICommand> getHistory() {
+        List<ICommand> history = new ArrayList<>(historySize);
+        for(int i = 0; i < historySize; i++) {
+            history.add(commandHistory[
+                    (historyStart + i) % commandHistory.length]);
+        }
+        return history;
+    }
+
+    // Returns the number of commands that can be undone.
+    protected int getHistorySize() {
+        return historySize;
+    }
+
+    // Puts a command that has already been executed on top of the history,
+    // without executing it again. Old commands are dropped from the history
+    // to make room for it if needed. This is also used by subclasses to
+    // restore a saved history.
+    protected void addToHistory(ICommand command) {
+        long weight = commandWeigher.applyAsLong(command);
+        while(historySize > 0 && historyWeight > maxHistoryWeight - weight) {
+            dropOldestCommand();
+        }
+        if(historySize == commandHistory.length) {
+            growHistory();
+        }
+
+        int index = (historyStart + historySize) % commandHistory.length;
+        commandHistory[index] = command;
+        commandWeights[index] = weight;
+        historyWeight += weight;
+        historySize++;
+    }
+
+
+    // Used by the constructors that take a maximum depth.
+    static int checkMaxDepth(int maxDepth) {
+        if(maxDepth < 1) {
+            throw new IllegalArgumentException(
+                    "The history must hold at least 1 command!");
+        }
+        return maxDepth;
+    }
+
+    private void dropOldestCommand() {
+        historyWeight -= commandWeights[historyStart];
+        commandHistory[historyStart] = null;
+        historyStart = (historyStart + 1) % commandHistory.length;
+        historySize--;
+    }
+
+    // Doubles the ring buffer, moving the commands to the start of the new
+    // arrays in order.
+    private void growHistory() {
+        int capacity = commandHistory.length;
+        int newCapacity = (int) Math.min(capacity * 2L, Integer.MAX_VALUE - 8);
+        ICommand[] newHistory = new ICommand[newCapacity];
+        long[] newWeights = new long[newCapacity];
+        for(int i = 0; i < historySize; i++) {
+            newHistory[i] = commandHistory[(historyStart + i) % capacity];
+            newWeights[i] = commandWeights[(historyStart + i) % capacity];
+        }
+        commandHistory = newHistory;
+        commandWeights = newWeights;
+        historyStart = 0;
+    }
 }
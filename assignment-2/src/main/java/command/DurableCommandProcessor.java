@@ -0,0 +1,583 @@
+package command;
+
+import datastructures.priorityqueue.HeapPriorityQueue;
+import datastructures.priorityqueue.QueueHandle;
+import persistence.ElementCodec;
+import persistence.WriteAheadLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * A CommandProcessor that keeps a priority queue and the history of its
+ * commands on disk, so that both survive a restart of the process.
+ *
+ * Every command is appended to a write-ahead log before it is executed, and
+ * every undo is appended after it. Every snapshotInterval records, the whole
+ * queue and the history are written to a snapshot file and the log is
+ * emptied. When the processor is created, it loads the latest snapshot into
+ * the (empty) queue and replays only the log records that came after it.
+ *
+ * The snapshot also saves which queue entries the commands in the history
+ * refer to: an entry that is still queued by its position in the heap
+ * array, and any other entry in a table of its own. Commands that are
+ * restored from a snapshot therefore get handles to the exact same entries,
+ * and undoing them changes the heap in exactly the same way as in the
+ * original run, even if the queue holds several equal elements. This keeps
+ * the queue identical to the original one for all later log records.
+ *
+ * NOTE 1: Only AddToPriorityQueueCommand, RemoveFromPriorityQueueCommand
+ * and BatchPriorityQueueCommand on the queue of this processor can be
+ * executed.
+ * NOTE 2: The queue must only be changed through this processor, and queued
+ * elements must not be changed, since otherwise the log no longer describes
+ * the queue.
+ * NOTE 3: The history can be limited just like the history of a
+ * CommandProcessor, which also limits the size of the snapshots. The
+ * processor must then always be opened with the same (or a larger) limit,
+ * since the log may undo commands that a smaller history would have dropped.
+ * Checkpoints are not taken, since they only live in memory.
+ * @param <E> Type of the elements in the queue
+ */
+public class DurableCommandProcessor<E> extends CommandProcessor
+        implements Closeable {
+
+    static final String LOG_FILE_NAME = "commands.wal";
+    static final String SNAPSHOT_FILE_NAME = "queue.snapshot";
+
+    private static final int SNAPSHOT_MAGIC = 0x534E4150; // "SNAP"
+
+    // Types of the log records. Snapshots use the same types for the history.
+    private static final byte ADD_RECORD = 1;
+    private static final byte REMOVE_RECORD = 2;
+    private static final byte UNDO_RECORD = 3;
+    private static final byte BATCH_RECORD = 4;
+
+    private HeapPriorityQueue<E> priorityQueue;
+    private ElementCodec<E> codec;
+
+    private WriteAheadLog log;
+    private Path snapshotFile;
+
+    // A snapshot is written after this many log records, or never if it is 0.
+    private int snapshotInterval;
+    private int recordsSinceSnapshot = 0;
+
+    // Sequence number of the first log record that is not in the snapshot.
+    private long snapshotSequence = 0;
+
+    // Set while the log is replayed, so that replayed commands are not
+    // appended to the log again.
+    private boolean replaying = false;
+
+
+    /**
+     * Opens (or creates) the log and snapshot in the given directory, and
+     * restores the queue and the command history from them.
+     * @param priorityQueue An empty queue, that the saved elements are
+     * added to
+     * @param syncInterval Number of log records that are forced to the disk
+     * together
+     * @param snapshotInterval Number of log records after which a snapshot is
+     * written, or 0 to only write snapshots when writeSnapshot() is called
+     */
+    public DurableCommandProcessor(Path directory,
+                                   HeapPriorityQueue<E> priorityQueue,
+                                   ElementCodec<E> codec,
+                                   int syncInterval,
+                                   int snapshotInterval) throws IOException {
+        this(directory, priorityQueue, codec, syncInterval, snapshotInterval,
+                Long.MAX_VALUE, command -> 1);
+    }
+
+    /**
+     * Opens the log and snapshot like the constructor above, but only keeps
+     * the latest maxDepth commands in the history.
+     */
+    public DurableCommandProcessor(Path directory,
+                                   HeapPriorityQueue<E> priorityQueue,
+                                   ElementCodec<E> codec,
+                                   int syncInterval,
+                                   int snapshotInterval,
+                                   int maxDepth) throws IOException {
+        this(directory, priorityQueue, codec, syncInterval, snapshotInterval,
+                checkMaxDepth(maxDepth), command -> 1);
+    }
+
+    /**
+     * Opens the log and snapshot like the constructors above, but drops the
+     * oldest commands from the history whenever the total weight of the
+     * commands in it would exceed maxHistoryWeight (see CommandProcessor).
+     * @param commandWeigher Calculates the weight of a command
+     */
+    public DurableCommandProcessor(Path directory,
+                                   HeapPriorityQueue<E> priorityQueue,
+                                   ElementCodec<E> codec,
+                                   int syncInterval,
+                                   int snapshotInterval,
+                                   long maxHistoryWeight,
+                                   ToLongFunction<ICommand> commandWeigher)
+            throws IOException {
+        super(maxHistoryWeight, commandWeigher);
+        if(!priorityQueue.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "The queue is restored from disk, so it must be empty!");
+        }
+        if(snapshotInterval < 0) {
+            throw new IllegalArgumentException(
+                    "The snapshot interval cannot be negative!");
+        }
+        this.priorityQueue = priorityQueue;
+        this.codec = codec;
+        this.snapshotInterval = snapshotInterval;
+
+        Files.createDirectories(directory);
+        snapshotFile = directory.resolve(SNAPSHOT_FILE_NAME);
+        if(Files.exists(snapshotFile)) {
+            readSnapshot();
+        }
+
+        log = new WriteAheadLog(directory.resolve(LOG_FILE_NAME),
+                syncInterval);
+        try {
+            replayLog();
+            // A crash while the log was reset can leave it without its
+            // header, and it is then started again at sequence 0. Its
+            // records must be numbered from the snapshot on, or the next
+            // replay would skip them as if they were in the snapshot.
+            if(log.getNextSequence() < snapshotSequence) {
+                log.reset(snapshotSequence);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+
+    @Override
+    public void execute(ICommand command) {
+        if(!replaying) {
+            try {
+                appendToLog(command);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        super.execute(command);
+        if(!replaying) {
+            recordAppended();
+        }
+    }
+
+    @Override
+    public void undo() {
+        super.undo();
+        if(!replaying) {
+            try {
+                log.append(UNDO_RECORD, new byte[0]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            recordAppended();
+        }
+    }
+
+    /**
+     * Forces all log records that have not been synced yet to the disk.
+     */
+    public void sync() throws IOException {
+        log.sync();
+    }
+
+    /**
+     * Writes the queue and the command history to a new snapshot and empties
+     * the log. The snapshot is first written to a temporary file, which then
+     * replaces the old snapshot in one atomic step. The directory is synced
+     * before the log is emptied, so there always is one complete snapshot on
+     * the disk that the log continues from.
+     */
+    public void writeSnapshot() throws IOException {
+        log.sync();
+        long sequence = log.getNextSequence();
+
+        Path temporaryFile = snapshotFile.resolveSibling(
+                SNAPSHOT_FILE_NAME + ".tmp");
+        try(FileOutputStream fileOutput =
+                    new FileOutputStream(temporaryFile.toFile())) {
+            DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(fileOutput));
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeLong(sequence);
+
+            // The elements are written in the order of the heap array, so
+            // that the same heap is rebuilt when they are read back.
+            output.writeInt(priorityQueue.size());
+            try {
+                priorityQueue.forEach(element -> {
+                    try {
+                        codec.write(element, output);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // Handles that are not queued are saved in a table before the
+            // history, so that commands which share a handle get the same
+            // handle back.
+            List<ICommand> history = getHistory();
+            Map<QueueHandle<E>, Integer> unqueuedHandleIds =
+                    new IdentityHashMap<>();
+            List<E> unqueuedElements = new ArrayList<>();
+            for(ICommand command : history) {
+                for(QueueHandle<E> handle : handlesOf(command)) {
+                    if(priorityQueue.getIndex(handle) < 0 &&
+                            !unqueuedHandleIds.containsKey(handle)) {
+                        unqueuedHandleIds.put(handle,
+                                unqueuedElements.size());
+                        unqueuedElements.add(handle.getElement());
+                    }
+                }
+            }
+            writeElements(unqueuedElements, output);
+
+            output.writeInt(history.size());
+            for(ICommand command : history) {
+                writeHistoryEntry(command, unqueuedHandleIds, output);
+            }
+
+            output.flush();
+            fileOutput.getFD().sync();
+        }
+        Files.move(temporaryFile, snapshotFile,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        // The new name of the snapshot is only durable once the directory
+        // itself is synced. Otherwise a crash could bring back the old
+        // snapshot next to a log that no longer continues from it.
+        syncDirectory(snapshotFile.getParent());
+
+        // If the process crashes before the log is reset, the records that
+        // are already in the snapshot are skipped when the log is replayed.
+        log.reset(sequence);
+        snapshotSequence = sequence;
+        recordsSinceSnapshot = 0;
+    }
+
+    /**
+     * Syncs the log and closes it. The processor cannot be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+
+    private void appendToLog(ICommand command) throws IOException {
+        if(command instanceof AddToPriorityQueueCommand &&
+                ((AddToPriorityQueueCommand<?>) command).getPriorityQueue()
+                        == priorityQueue) {
+            @SuppressWarnings("unchecked")
+            E element = ((AddToPriorityQueueCommand<E>) command).getElement();
+            log.append(ADD_RECORD, encode(element));
+        } else if(command instanceof RemoveFromPriorityQueueCommand &&
+                ((RemoveFromPriorityQueueCommand<?>) command)
+                        .getPriorityQueue() == priorityQueue) {
+            log.append(REMOVE_RECORD, new byte[0]);
+        } else if(command instanceof BatchPriorityQueueCommand &&
+                ((BatchPriorityQueueCommand<?>) command).getPriorityQueue()
+                        == priorityQueue) {
+            @SuppressWarnings("unchecked")
+            BatchPriorityQueueCommand<E> batch =
+                    (BatchPriorityQueueCommand<E>) command;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            writeElements(batch.getElementsToBeAdded(), output);
+            output.writeInt(batch.getRemovalCount());
+            output.flush();
+            log.append(BATCH_RECORD, bytes.toByteArray());
+        } else {
+            throw new IllegalArgumentException("Only commands that add to or"
+                    + " remove from the durable queue can be executed!");
+        }
+    }
+
+    /*
+     * Forces the entries of a directory to the disk. Windows does not allow
+     * directories to be opened, but its file systems journal renames, so
+     * nothing has to be done there.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        try(FileChannel channel = FileChannel.open(directory,
+                StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if(!System.getProperty("os.name").startsWith("Windows")) {
+                throw e;
+            }
+        }
+    }
+
+    private void recordAppended() {
+        recordsSinceSnapshot++;
+        if(snapshotInterval > 0 && recordsSinceSnapshot >= snapshotInterval) {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void replayLog() throws IOException {
+        if(log.getBaseSequence() > snapshotSequence) {
+            throw new IOException(
+                    "The write-ahead log does not continue from the snapshot!");
+        }
+
+        List<WriteAheadLog.Record> records = log.getRecoveredRecords();
+        long firstRecord = snapshotSequence - log.getBaseSequence();
+        replaying = true;
+        try {
+            for(long index = firstRecord; index < records.size(); index++) {
+                WriteAheadLog.Record record = records.get((int) index);
+                switch(record.getType()) {
+                    case ADD_RECORD:
+                        execute(new AddToPriorityQueueCommand<>(priorityQueue,
+                                decode(record.getPayload())));
+                        break;
+                    case REMOVE_RECORD:
+                        execute(new RemoveFromPriorityQueueCommand<>(
+                                priorityQueue));
+                        break;
+                    case BATCH_RECORD:
+                        replayBatch(record.getPayload());
+                        break;
+                    case UNDO_RECORD:
+                        replayUndo();
+                        break;
+                    default:
+                        throw new IOException("Unknown log record type "
+                                + record.getType() + "!");
+                }
+                recordsSinceSnapshot++;
+            }
+        } finally {
+            replaying = false;
+        }
+    }
+
+    private void replayUndo() throws IOException {
+        try {
+            undo();
+        } catch (EmptyStackException e) {
+            throw new IOException("The log undoes a command that is no longer"
+                    + " in the history, so the history limit was lowered!");
+        }
+    }
+
+    private void writeHistoryEntry(ICommand command,
+                                   Map<QueueHandle<E>, Integer>
+                                           unqueuedHandleIds,
+                                   DataOutputStream output)
+            throws IOException {
+        if(command instanceof AddToPriorityQueueCommand) {
+            @SuppressWarnings("unchecked")
+            QueueHandle<E> handle =
+                    ((AddToPriorityQueueCommand<E>) command).getHandle();
+            output.writeByte(ADD_RECORD);
+            writeHandle(handle, unqueuedHandleIds, output);
+        } else if(command instanceof BatchPriorityQueueCommand) {
+            @SuppressWarnings("unchecked")
+            BatchPriorityQueueCommand<E> batch =
+                    (BatchPriorityQueueCommand<E>) command;
+            output.writeByte(BATCH_RECORD);
+            writeHandles(batch.getAddedHandles(), unqueuedHandleIds, output);
+            writeHandles(batch.getRemovedHandles(), unqueuedHandleIds,
+                    output);
+        } else {
+            @SuppressWarnings("unchecked")
+            QueueHandle<E> handle = ((RemoveFromPriorityQueueCommand<E>)
+                    command).getRemovedHandle();
+            output.writeByte(REMOVE_RECORD);
+            output.writeBoolean(handle != null);
+            if(handle != null) {
+                writeHandle(handle, unqueuedHandleIds, output);
+            }
+        }
+    }
+
+    // Returns the handles that a command from the history refers to.
+    @SuppressWarnings("unchecked")
+    private List<QueueHandle<E>> handlesOf(ICommand command) {
+        List<QueueHandle<E>> handles = new ArrayList<>();
+        if(command instanceof AddToPriorityQueueCommand) {
+            handles.add(((AddToPriorityQueueCommand<E>) command).getHandle());
+        } else if(command instanceof BatchPriorityQueueCommand) {
+            BatchPriorityQueueCommand<E> batch =
+                    (BatchPriorityQueueCommand<E>) command;
+            handles.addAll(batch.getAddedHandles());
+            handles.addAll(batch.getRemovedHandles());
+        } else {
+            QueueHandle<E> handle = ((RemoveFromPriorityQueueCommand<E>)
+                    command).getRemovedHandle();
+            if(handle != null) {
+                handles.add(handle);
+            }
+        }
+        return handles;
+    }
+
+    /*
+     * A handle is saved as the index of its entry in the heap array if it is
+     * queued, or as -1 - n if it is the n-th handle in the table of handles
+     * that are not queued.
+     */
+    private void writeHandle(QueueHandle<E> handle,
+                             Map<QueueHandle<E>, Integer> unqueuedHandleIds,
+                             DataOutputStream output) throws IOException {
+        int index = priorityQueue.getIndex(handle);
+        output.writeInt(index >= 0 ? index
+                : -1 - unqueuedHandleIds.get(handle));
+    }
+
+    private void writeHandles(List<QueueHandle<E>> handles,
+                              Map<QueueHandle<E>, Integer> unqueuedHandleIds,
+                              DataOutputStream output) throws IOException {
+        output.writeInt(handles.size());
+        for(QueueHandle<E> handle : handles) {
+            writeHandle(handle, unqueuedHandleIds, output);
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        try(DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if(input.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a queue snapshot file!");
+            }
+            snapshotSequence = input.readLong();
+
+            // Adding the elements in the order of the heap array puts every
+            // element straight into its old position, so the handles are in
+            // the same order as the saved indices.
+            List<QueueHandle<E>> queuedHandles =
+                    priorityQueue.addAllWithHandles(readElements(input));
+            List<QueueHandle<E>> unqueuedHandles = new ArrayList<>();
+            for(E element : readElements(input)) {
+                unqueuedHandles.add(priorityQueue.createHandle(element));
+            }
+
+            int historySize = input.readInt();
+            for(int i = 0; i < historySize; i++) {
+                byte type = input.readByte();
+                if(type == ADD_RECORD) {
+                    addToHistory(new AddToPriorityQueueCommand<>(
+                            priorityQueue, readHandle(input, queuedHandles,
+                            unqueuedHandles)));
+                } else if(type == REMOVE_RECORD) {
+                    QueueHandle<E> handle = input.readBoolean()
+                            ? readHandle(input, queuedHandles, unqueuedHandles)
+                            : null;
+                    addToHistory(new RemoveFromPriorityQueueCommand<>(
+                            priorityQueue, handle));
+                } else if(type == BATCH_RECORD) {
+                    List<QueueHandle<E>> addedHandles = readHandles(input,
+                            queuedHandles, unqueuedHandles);
+                    addToHistory(new BatchPriorityQueueCommand<>(
+                            priorityQueue, addedHandles, readHandles(input,
+                            queuedHandles, unqueuedHandles)));
+                } else {
+                    throw new IOException("Unknown history entry type "
+                            + type + "!");
+                }
+            }
+        }
+    }
+
+    private QueueHandle<E> readHandle(DataInputStream input,
+                                      List<QueueHandle<E>> queuedHandles,
+                                      List<QueueHandle<E>> unqueuedHandles)
+            throws IOException {
+        int reference = input.readInt();
+        int unqueuedId = -1 - reference;
+        if(reference >= queuedHandles.size() ||
+                unqueuedId >= unqueuedHandles.size()) {
+            throw new IOException("Snapshot refers to an unknown entry "
+                    + reference + "!");
+        }
+        return reference >= 0 ? queuedHandles.get(reference)
+                : unqueuedHandles.get(unqueuedId);
+    }
+
+    private List<QueueHandle<E>> readHandles(
+            DataInputStream input, List<QueueHandle<E>> queuedHandles,
+            List<QueueHandle<E>> unqueuedHandles) throws IOException {
+        int size = input.readInt();
+        List<QueueHandle<E>> handles = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            handles.add(readHandle(input, queuedHandles, unqueuedHandles));
+        }
+        return handles;
+    }
+
+    private void replayBatch(byte[] payload) throws IOException {
+        DataInputStream input = new DataInputStream(
+                new ByteArrayInputStream(payload));
+        List<E> elements = readElements(input);
+        execute(new BatchPriorityQueueCommand<>(priorityQueue, elements,
+                input.readInt()));
+    }
+
+    private void writeElements(List<E> elements, DataOutputStream output)
+            throws IOException {
+        output.writeInt(elements.size());
+        for(E element : elements) {
+            codec.write(element, output);
+        }
+    }
+
+    private List<E> readElements(DataInputStream input) throws IOException {
+        int size = input.readInt();
+        List<E> elements = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            elements.add(codec.read(input));
+        }
+        return elements;
+    }
+
+    private byte[] encode(E element) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        codec.write(element, output);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private E decode(byte[] payload) throws IOException {
+        return codec.read(new DataInputStream(
+                new ByteArrayInputStream(payload)));
+    }
+}
@@ -0,0 +1,38 @@
+package command;
+
+import datastructures.priorityqueue.PersistentHeapPriorityQueue;
+
+/**
+ * Base class for commands on a PersistentHeapPriorityQueue. The version of
+ * the queue from before the command is kept, so undoing the command just
+ * sets the queue back to that version in O(1) time, instead of running an
+ * inverse operation.
+ * Commands have to be undone in the reverse order of their execution, as
+ * CommandProcessor does, since restoring a version also undoes every later
+ * change to the queue.
+ * @param <E> Type of the elements in the queue
+ */
+public abstract class PersistentPriorityQueueCommand<E> implements ICommand {
+
+    protected PersistentHeapPriorityQueue<E> priorityQueue;
+    private PersistentHeapPriorityQueue.Version<E> previousVersion;
+
+    protected PersistentPriorityQueueCommand(
+            PersistentHeapPriorityQueue<E> priorityQueue) {
+        this.priorityQueue = priorityQueue;
+    }
+
+    @Override
+    public void execute() {
+        previousVersion = priorityQueue.snapshot();
+        apply();
+    }
+
+    @Override
+    public void undo() {
+        priorityQueue.restore(previousVersion);
+    }
+
+    // Performs the actual change to the queue.
+    protected abstract void apply();
+}
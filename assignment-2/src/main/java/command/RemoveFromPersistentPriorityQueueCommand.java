@@ -0,0 +1,22 @@
+package command;
+
+import datastructures.priorityqueue.PersistentHeapPriorityQueue;
+
+/**
+ * Class to support removing an element from a PersistentHeapPriorityQueue
+ * and support undoing it.
+ * @param <E> Type of element to be removed from the queue
+ */
+public class RemoveFromPersistentPriorityQueueCommand<E>
+        extends PersistentPriorityQueueCommand<E> {
+
+    public RemoveFromPersistentPriorityQueueCommand(
+            PersistentHeapPriorityQueue<E> priorityQueue) {
+        super(priorityQueue);
+    }
+
+    @Override
+    protected void apply() {
+        priorityQueue.poll();
+    }
+}
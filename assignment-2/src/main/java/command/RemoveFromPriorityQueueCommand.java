@@ -1,6 +1,7 @@
 package command;
 
 import datastructures.priorityqueue.HeapPriorityQueue;
+import datastructures.priorityqueue.QueueHandle;
 
 /**
  * Class to support removing an element from the queue and support undoing it.
@@ -11,19 +12,45 @@ public class RemoveFromPriorityQueueCommand<E> implements ICommand {
     // Using HeapPriorityQueue<E> instead of AbstractQueue<E> since
     // AbstractQueue<E> does not have an interface that can support undoing
     private HeapPriorityQueue<E> priorityQueue;
-    private E element;
+
+    // We keep the handle of the removed element, so that undo puts it back
+    // under the same handle. This keeps the handle of an earlier
+    // AddToPriorityQueueCommand valid if both commands are undone.
+    private QueueHandle<E> elementHandle;
 
     public RemoveFromPriorityQueueCommand(HeapPriorityQueue<E> priorityQueue) {
         this.priorityQueue = priorityQueue;
     }
 
+    // Creates a command that has already removed the element of the given
+    // handle (or nothing, if it is null).
+    RemoveFromPriorityQueueCommand(HeapPriorityQueue<E> priorityQueue,
+                                   QueueHandle<E> elementHandle) {
+        this.priorityQueue = priorityQueue;
+        this.elementHandle = elementHandle;
+    }
+
     @Override
     public void execute() {
-        this.element = priorityQueue.poll();
+        this.elementHandle = priorityQueue.pollHandle();
     }
 
     @Override
     public void undo() {
-        priorityQueue.add(element);
+        // Nothing was removed if the queue was empty:
+        if(elementHandle != null) {
+            priorityQueue.reinsert(elementHandle);
+        }
+    }
+
+
+    HeapPriorityQueue<E> getPriorityQueue() {
+        return priorityQueue;
+    }
+
+    // Returns the handle of the removed element, or null if nothing was
+    // removed.
+    QueueHandle<E> getRemovedHandle() {
+        return elementHandle;
     }
 }
@@ -0,0 +1,269 @@
+package datastructures.priorityqueue;
+
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/*
+ * BlockingHeapPriorityQueue is a BlockingQueue that is built on top of a
+ * HeapPriorityQueue, for feeding pools of worker threads.
+ * All operations on the heap are guarded by a single lock. Consumers that
+ * call take() or poll(long, TimeUnit) on an empty queue wait on a condition
+ * of that lock, so idle consumers do not use any CPU, and are woken up as
+ * soon as an element is added.
+ * drainTo(Collection, int) removes a whole batch of elements while holding
+ * the lock once, instead of locking for every element.
+ *
+ * NOTE 1: The queue is unbounded, so put(E) and offer(E) never block.
+ * NOTE 2: Null elements are not allowed, since poll() and peek() use null to
+ * indicate that the queue is empty.
+ * NOTE 3: The iterator works on a snapshot of the queue, taken when the
+ * iterator is created, and does not support removing elements. Elements can
+ * still be removed with remove(Object), removeIf(), removeAll() and
+ * retainAll(), which all work on the heap while holding the lock.
+ */
+public class BlockingHeapPriorityQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    private HeapPriorityQueue<E> heap;
+
+    private ReentrantLock lock = new ReentrantLock();
+
+    // Consumers wait on this condition while the queue is empty.
+    private Condition notEmpty = lock.newCondition();
+
+
+    BlockingHeapPriorityQueue(ComparisonStrategy comparisonStrategy,
+                              PriorityStrategy<E> priorityStrategy) {
+        this.heap = new HeapPriorityQueue<>(comparisonStrategy,
+                priorityStrategy);
+    }
+
+
+    @Override
+    public boolean add(E element) {
+        return offer(element);
+    }
+
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+
+        lock.lock();
+        try {
+            heap.add(element);
+            // Only one element was added, so only one consumer has to wake up:
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public void put(E element) {
+        offer(element);
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) {
+        return offer(element);
+    }
+
+    @Override
+    public E poll() {
+        lock.lock();
+        try {
+            return heap.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the element with the top priority, waiting until
+     * an element is added if the queue is empty.
+     */
+    @Override
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while(heap.isEmpty()) {
+                notEmpty.await();
+            }
+            return heap.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the element with the top priority, waiting up to
+     * the given time for an element to be added if the queue is empty.
+     * Returns null if the time runs out before an element is available.
+     */
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            while(heap.isEmpty()) {
+                if(remainingNanos <= 0) {
+                    return null;
+                }
+                remainingNanos = notEmpty.awaitNanos(remainingNanos);
+            }
+            return heap.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        lock.lock();
+        try {
+            return heap.peek();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return heap.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes up to maxElements elements, in priority order, and adds them to
+     * the given collection. The lock is only acquired once for the whole
+     * batch.
+     * @return The number of elements that were moved
+     */
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        Objects.requireNonNull(collection);
+        if(collection == this) {
+            throw new IllegalArgumentException(
+                    "A queue cannot be drained into itself!");
+        }
+        if(maxElements <= 0) return 0;
+
+        lock.lock();
+        try {
+            int drainedCount = Math.min(heap.size(), maxElements);
+            for(int i = 0; i < drainedCount; i++) {
+                collection.add(heap.poll());
+            }
+            return drainedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        lock.lock();
+        try {
+            return heap.contains(object);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes one element that is equal to the given object, for example to
+     * cancel work that is still queued.
+     * @return True if an element was removed
+     */
+    @Override
+    public boolean remove(Object object) {
+        if(object == null) return false;
+
+        lock.lock();
+        try {
+            // indexOf() only compares the elements with equals(), so an
+            // object of another type is simply not found.
+            @SuppressWarnings("unchecked")
+            int index = heap.indexOf((E) object);
+            if(index < 0) return false;
+
+            heap.removeAtIndex(index);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all elements that match the filter, while holding the lock
+     * once. The filter must not use this queue.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+
+        lock.lock();
+        try {
+            return heap.removeIf(filter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        Objects.requireNonNull(collection);
+        return removeIf(collection::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        Objects.requireNonNull(collection);
+        return removeIf(element -> !collection.contains(element));
+    }
+
+    @Override
+    public Object[] toArray() {
+        lock.lock();
+        try {
+            return heap.toArray();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        // The snapshot only holds elements of type E, so this cast is safe.
+        @SuppressWarnings("unchecked")
+        E[] snapshot = (E[]) toArray();
+        return Arrays.asList(snapshot).iterator();
+    }
+}
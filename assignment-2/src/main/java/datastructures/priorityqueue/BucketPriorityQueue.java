@@ -0,0 +1,254 @@
+package datastructures.priorityqueue;
+
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * BucketPriorityQueue is a priority queue for priorities that only take a
+ * small number of distinct values, such as the units of a student (0 to
+ * 150).
+ * Every priority is turned into an integer key by multiplying it with a key
+ * scale and rounding it down. For every key between the declared minimum and
+ * maximum key there is a bucket, and an element is simply appended to the
+ * bucket of its key, so adding takes O(1) time without any comparisons.
+ * The buckets are kept in priority order, and the queue remembers the top
+ * bucket that may hold elements. poll() takes the first element of that
+ * bucket, and only moves on to the next bucket once it is empty. If elements
+ * are mostly added with priorities below the ones that were already polled
+ * (as with a monotone queue), the top bucket only moves in one direction, so
+ * polling takes O(1) amortized time.
+ * Elements whose keys are outside the declared range are kept in a
+ * HeapPriorityQueue instead, which is slower but still correct.
+ *
+ * NOTE 1: This data structure does not prevent adding the same
+ * object twice.
+ * NOTE 2: Elements with the same key are returned in the order in which they
+ * were added. Elements whose priorities differ by less than 1 / keyScale can
+ * have the same key, so the queue is only exact if every priority is a
+ * multiple of 1 / keyScale.
+ * NOTE 3: The iterator returns the elements in no particular order, and does
+ * not support removing elements.
+ */
+public class BucketPriorityQueue<E> extends AbstractQueue<E> {
+
+    // Declared ranges larger than this would allocate too much memory for
+    // the array of buckets.
+    private static final int MAX_BUCKETS = 1 << 24;
+
+    // Index 0 is the bucket with the top priority. The buckets themselves
+    // are only created once an element is added to them.
+    private ArrayDeque<E>[] buckets;
+    private int minKey;
+    private int maxKey;
+    private double keyScale;
+
+    // True if higher keys come first (a max queue), which is decided by
+    // asking the comparison strategy.
+    private boolean highKeysFirst;
+
+    // Every bucket before this index is empty.
+    private int topBucketIndex;
+    private int bucketedCount = 0;
+
+    // Elements whose keys are outside of the declared range.
+    private HeapPriorityQueue<E> outOfRangeElements;
+
+    private PriorityStrategy<E> priorityStrategy;
+
+    // Counts the changes made to the queue, so that iterators can detect that
+    // the queue was modified while they were iterating over it.
+    private int modCount = 0;
+
+
+    /**
+     * @param minKey Lowest key that gets a bucket
+     * @param maxKey Highest key that gets a bucket
+     * @param keyScale Priorities are multiplied with this before they are
+     * rounded down to their keys
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    BucketPriorityQueue(ComparisonStrategy comparisonStrategy,
+                        PriorityStrategy<E> priorityStrategy,
+                        int minKey, int maxKey, double keyScale) {
+        if(minKey > maxKey || (long) maxKey - minKey >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("The key range must hold"
+                    + " between 1 and " + MAX_BUCKETS + " keys!");
+        }
+        if(!(keyScale > 0) || Double.isInfinite(keyScale)) {
+            throw new IllegalArgumentException(
+                    "The key scale must be a positive number!");
+        }
+        this.priorityStrategy = priorityStrategy;
+        this.minKey = minKey;
+        this.maxKey = maxKey;
+        this.keyScale = keyScale;
+        this.highKeysFirst = comparisonStrategy.compare(1, 0)
+                && !comparisonStrategy.compare(0, 1);
+        this.buckets = (ArrayDeque<E>[]) new ArrayDeque[maxKey - minKey + 1];
+        this.topBucketIndex = buckets.length;
+        this.outOfRangeElements = new HeapPriorityQueue<>(comparisonStrategy,
+                priorityStrategy);
+    }
+
+    // Creates a queue for priorities that are whole numbers, which are used
+    // as keys directly.
+    BucketPriorityQueue(ComparisonStrategy comparisonStrategy,
+                        PriorityStrategy<E> priorityStrategy,
+                        int minKey, int maxKey) {
+        this(comparisonStrategy, priorityStrategy, minKey, maxKey, 1);
+    }
+
+
+    @Override
+    public boolean add(E element) {
+        return offer(element);
+    }
+
+    /**
+     * Adds an element to the bucket of its key in O(1) time, or to the
+     * fallback heap if its key is out of range. Since this queue is
+     * unbounded, this always succeeds.
+     */
+    @Override
+    public boolean offer(E element) {
+        modCount++;
+        double priority = priorityStrategy.getPriority(element);
+        double key = Math.floor(priority * keyScale);
+        // Written so that NaN keys are out of range as well:
+        if(!(key >= minKey && key <= maxKey)) {
+            outOfRangeElements.addWithPriority(element, priority);
+            return true;
+        }
+
+        int bucketIndex = highKeysFirst
+                ? maxKey - (int) key
+                : (int) key - minKey;
+        ArrayDeque<E> bucket = buckets[bucketIndex];
+        if(bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets[bucketIndex] = bucket;
+        }
+        bucket.addLast(element);
+        bucketedCount++;
+        if(bucketIndex < topBucketIndex) {
+            topBucketIndex = bucketIndex;
+        }
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        if(isOutOfRangeFirst()) {
+            return outOfRangeElements.peek();
+        }
+        return bucketedCount > 0 ? buckets[findTopBucket()].peekFirst()
+                : null;
+    }
+
+    /**
+     * Removes and returns the element with the top priority, or null if the
+     * queue is empty.
+     */
+    @Override
+    public E poll() {
+        if(isOutOfRangeFirst()) {
+            modCount++;
+            return outOfRangeElements.poll();
+        }
+        if(bucketedCount == 0) {
+            // There are no elements to remove!
+            return null;
+        }
+
+        modCount++;
+        bucketedCount--;
+        return buckets[findTopBucket()].pollFirst();
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        Arrays.fill(buckets, null);
+        topBucketIndex = buckets.length;
+        bucketedCount = 0;
+        outOfRangeElements.clear();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new BucketIterator();
+    }
+
+    @Override
+    public int size() {
+        return bucketedCount + outOfRangeElements.size();
+    }
+
+
+    // Moves the top bucket index forward to the first bucket that is not
+    // empty, and returns it. There must be at least one bucketed element.
+    private int findTopBucket() {
+        while(buckets[topBucketIndex] == null
+                || buckets[topBucketIndex].isEmpty()) {
+            topBucketIndex++;
+        }
+        return topBucketIndex;
+    }
+
+    // Checks if the top out of range element comes before all buckets. The
+    // out of range elements are either above or below the whole range of the
+    // buckets, so only the side of the range has to be checked.
+    private boolean isOutOfRangeFirst() {
+        if(outOfRangeElements.isEmpty()) return false;
+        if(bucketedCount == 0) return true;
+
+        double key = Math.floor(outOfRangeElements.peekPriority() * keyScale);
+        return highKeysFirst ? key > maxKey : key < minKey;
+    }
+
+
+    /*
+     * Iterates over the buckets one after the other, and then over the out
+     * of range elements.
+     */
+    private class BucketIterator implements Iterator<E> {
+        private int bucketIndex = 0;
+        private Iterator<E> currentIterator = null;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            while(currentIterator == null || !currentIterator.hasNext()) {
+                if(bucketIndex < buckets.length) {
+                    ArrayDeque<E> bucket = buckets[bucketIndex++];
+                    currentIterator = bucket != null ? bucket.iterator()
+                            : null;
+                } else if(bucketIndex == buckets.length) {
+                    bucketIndex++;
+                    currentIterator = outOfRangeElements.iterator();
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public E next() {
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return currentIterator.next();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package datastructures.priorityqueue;
+
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.AbstractQueue;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * ConcurrentSkipListPriorityQueue is a thread-safe priority queue, for cases
+ * where many threads add and poll elements at the same time.
+ * A heap has to serialize every operation on its root, so instead the
+ * elements are kept in a lock-free skip list (ConcurrentSkipListSet), which
+ * is sorted by priority. Adding an element only touches the nodes around its
+ * position in the list, and polling removes the first node with a
+ * compare-and-swap, so neither operation takes a lock.
+ * Just like the HeapPriorityQueue, a PriorityStrategy calculates the
+ * priority of each element (once, when it is added) and a ComparisonStrategy
+ * decides if this is a min queue or a max queue.
+ *
+ * NOTE 1: This data structure does not prevent adding the same
+ * object twice.
+ * NOTE 2: Elements with the same priority are returned in the order in which
+ * they were added.
+ * NOTE 3: Null elements are not allowed, since poll() and peek() use null to
+ * indicate that the queue is empty.
+ * NOTE 4: size() and the iterator are weakly consistent: they may or may not
+ * reflect additions and removals that happen while they are being used.
+ */
+public class ConcurrentSkipListPriorityQueue<E> extends AbstractQueue<E> {
+
+    private ConcurrentSkipListSet<Entry<E>> entries;
+
+    // Every entry gets a unique, increasing sequence number. It breaks ties
+    // between entries with the same priority (the skip list would otherwise
+    // treat them as duplicates), in the order the entries were added.
+    private AtomicLong sequenceGenerator = new AtomicLong();
+
+    // The skip list counts its nodes by walking over all of them, so we keep
+    // our own count. A LongAdder spreads the updates over several cells, so
+    // threads do not contend on a single counter.
+    private LongAdder elementCount = new LongAdder();
+
+    private PriorityStrategy<E> priorityStrategy;
+
+
+    ConcurrentSkipListPriorityQueue(ComparisonStrategy comparisonStrategy,
+                                    PriorityStrategy<E> priorityStrategy) {
+        this.priorityStrategy = priorityStrategy;
+        this.entries = new ConcurrentSkipListSet<>(
+                entryComparator(comparisonStrategy));
+    }
+
+
+    @Override
+    public boolean add(E element) {
+        return offer(element);
+    }
+
+    /**
+     * Adds an element to the queue based on its priority. Since this queue is
+     * unbounded, this always succeeds.
+     */
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+
+        entries.add(new Entry<>(element,
+                priorityStrategy.getPriority(element),
+                sequenceGenerator.getAndIncrement()));
+        elementCount.increment();
+        return true;
+    }
+
+    /**
+     * Returns the element with the top priority without removing it, or null
+     * if the queue is empty.
+     */
+    @Override
+    public E peek() {
+        Iterator<Entry<E>> iterator = entries.iterator();
+        return iterator.hasNext() ? iterator.next().element : null;
+    }
+
+    /**
+     * Removes and returns the element with the top priority, or null if the
+     * queue is empty. If several threads poll at the same time, each element
+     * is returned to exactly one of them.
+     */
+    @Override
+    public E poll() {
+        Entry<E> entry = entries.pollFirst();
+        if(entry == null) {
+            // There are no elements to remove!
+            return null;
+        }
+
+        elementCount.decrement();
+        return entry.element;
+    }
+
+    /**
+     * Returns an iterator over the elements in priority order. The iterator
+     * is weakly consistent, and supports removing elements.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<Entry<E>> entryIterator = entries.iterator();
+
+        return new Iterator<E>() {
+            private Entry<E> lastEntry;
+
+            @Override
+            public boolean hasNext() {
+                return entryIterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                lastEntry = entryIterator.next();
+                return lastEntry.element;
+            }
+
+            @Override
+            public void remove() {
+                if(lastEntry == null) {
+                    throw new IllegalStateException();
+                }
+                // Another thread may have polled the entry in the meantime:
+                if(entries.remove(lastEntry)) {
+                    elementCount.decrement();
+                }
+                lastEntry = null;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        long count = elementCount.sum();
+        // The count can be briefly off while other threads update it:
+        return (int) Math.max(0, Math.min(count, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+
+    /*
+     * Orders the entries so that the entry with the top priority comes
+     * first. The ComparisonStrategy only tells us whether one priority may be
+     * above another in a heap, so an entry comes first only if it may be
+     * above the other entry, but not the other way around. Otherwise the
+     * priorities are equal, and the older entry comes first.
+     */
+    private static <E> Comparator<Entry<E>> entryComparator(
+            ComparisonStrategy comparisonStrategy) {
+        return (entryOne, entryTwo) -> {
+            boolean oneFirst = comparisonStrategy.compare(entryOne.priority,
+                    entryTwo.priority);
+            boolean twoFirst = comparisonStrategy.compare(entryTwo.priority,
+                    entryOne.priority);
+
+            if(oneFirst != twoFirst) {
+                return oneFirst ? -1 : 1;
+            }
+            return Long.compare(entryOne.sequence, entryTwo.sequence);
+        };
+    }
+
+    // An element of the queue, along with its cached priority and its
+    // sequence number.
+    private static class Entry<E> {
+        private final E element;
+        private final double priority;
+        private final long sequence;
+
+        Entry(E element, double priority, long sequence) {
+            this.element = element;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
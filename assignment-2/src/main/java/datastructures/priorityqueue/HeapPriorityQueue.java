@@ -1,46 +1,78 @@
 package datastructures.priorityqueue;
 
+import models.ChangeTrackable;
+import strategy.comparison.ComparisonStrategy;
 import strategy.priority.PriorityStrategy;
 
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /*
  * HeapPriorityQueue is a heap based implementation of the priority queue.
  * In order to allow the user to choose the ordering of the priorities of the
- * elements in the queue, this class was made abstract and a BiFunction object
- * is taken as input, to determine if this will be a min heap or a max heap.
+ * elements in the queue, a ComparisonStrategy object is taken as input, to
+ * determine if this will be a min heap or a max heap. A plain BiFunction is
+ * still accepted and adapted to a ComparisonStrategy.
  *
  * NOTE 1: This data structure does not prevent adding the same
  * object twice.
  * NOTE 2: This implementation makes NO GUARANTEE on the ordering
- * of objects with the same priority value.
+ * of objects with the same priority value. The PackedKeyPriorityQueue returns
+ * them in the order in which they were added.
  */
 public class HeapPriorityQueue<E> extends AbstractQueue<E> {
 
-    // We use an ArrayList to make the array implementation of a heap.
-    // An ArrayList is a List backed by an array. Add operations take constant
-    // amortized time for a single element. Get operations are always constant
-    // time since the list is backed by an array.
-    // Since this is an array implementation of the heap, we'll concretely
-    // set the data type of heapArray to ArrayList<E>, instead of keeping it
-    // as a general List<E>.
-    private ArrayList<E> heapArray = new ArrayList<>();
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // By default every element of the heap has (at most) 2 children, which
+    // makes it a binary heap.
+    static final int DEFAULT_ARITY = 2;
+
+    // Largest array size we will attempt to allocate. Some VMs reserve a few
+    // header words in an array, so we stay slightly below Integer.MAX_VALUE.
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    // We use a plain array to make the array implementation of a heap.
+    // Element accesses are then simple array reads and writes, without the
+    // bounds checks of a List, and we control how the array grows (see
+    // ensureCapacity(int)). Elements are only ever stored as E, so it is safe
+    // to cast them back when they are read (see elementAt(int)).
+    // Slots at or beyond heapLength are always null, so that removed elements
+    // can be garbage collected.
+    private Object[] heapArray = new Object[DEFAULT_CAPACITY];
 
     // We'll store the length of the heap to quickly find the last element in
     // the heap as well as keep track of the size of the heap.
     private int heapLength = 0;
 
-    // This BiFunction takes a lambda which will be used to determine
-    // if this heap is a min heap or max heap.
+    // The priority of every element is calculated once, when it is added, and
+    // cached here at the same index as the element in heapArray. Whenever an
+    // element is moved in heapArray, its priority is moved here as well, so
+    // all comparisons during percolation only read these cached values
+    // instead of calling the PriorityStrategy again.
+    private double[] priorities = new double[DEFAULT_CAPACITY];
+
+    // Handles of the elements that were added with addWithHandle(E), stored
+    // at the same index as their element in heapArray (slots of elements
+    // without a handle are null). Whenever an element is moved, its handle
+    // is moved and its index updated, which keeps every handle pointing at
+    // its element. This array is only created once the first handle is
+    // requested, so queues that never use handles do not pay for it.
+    private QueueHandle<E>[] handles;
+
+    // This ComparisonStrategy will be used to determine if this heap is a min
+    // heap or max heap. It compares primitive doubles, so no boxing happens
+    // during percolation.
     // NOTE: We always compare by passing the upper/parent element first,
     // followed by the lower/child element. When elements are passed in this
     // order, the function will evaluate to TRUE if it satisfies the heap
     // priorities, otherwise it will evaluate to FALSE.
-    private BiFunction<Double, Double, Boolean> comparisonStrategy;
+    private ComparisonStrategy comparisonStrategy;
 
     // The PriorityStrategy object allows us to pass an object from the queue
     // and calculate its priority. This is strategy object is accepted as an
@@ -49,41 +81,307 @@ public class HeapPriorityQueue<E> extends AbstractQueue<E> {
     // calculate the priority of its elements.
     private PriorityStrategy<E> priorityStrategy;
 
+    // The maximum number of children of each element in the heap. A heap
+    // with more children per element is shallower, so poll() needs fewer
+    // levels to percolate an element down (at the cost of comparing more
+    // children at every level), and add() needs fewer levels to percolate an
+    // element up. The children of an element are stored next to each other,
+    // so they are usually read from the same cache line.
+    private int arity = DEFAULT_ARITY;
 
-    HeapPriorityQueue(BiFunction<Double, Double, Boolean> comparisonStrategy,
+    // If the arity is a power of 2, parent and child indices are computed
+    // with shifts by this amount instead of divisions and multiplications.
+    // It is -1 for any other arity.
+    private int arityShift = 1;
+
+    // Counts the changes made to the heap, so that iterators can detect that
+    // the queue was modified while they were iterating over it.
+    private int modCount = 0;
+
+    // True once enableChangeTracking() has been called. Every trackable
+    // element then gets a handle, whose listener marks it as dirty when the
+    // element changes.
+    private boolean changeTracking = false;
+
+    // Handles of the elements that changed since the heap was last fixed.
+    // Their cached priorities are stale, but the heap is still valid for the
+    // cached priorities, so they only have to be repositioned before the
+    // order of the heap is read again.
+    private List<QueueHandle<E>> dirtyHandles;
+
+
+    HeapPriorityQueue(ComparisonStrategy comparisonStrategy,
                       PriorityStrategy<E> priorityStrategy) {
         this.comparisonStrategy = comparisonStrategy;
         this.priorityStrategy = priorityStrategy;
     }
 
-    // This constructor is used to make a copy for iterating over its elements
-    // and is unused outside the class (for now), hence the private access.
-    private HeapPriorityQueue(HeapPriorityQueue<E> initializingQueue) {
-        this.comparisonStrategy = initializingQueue.comparisonStrategy;
-        this.priorityStrategy = initializingQueue.priorityStrategy;
-        this.heapArray = new ArrayList<>(initializingQueue.heapArray);
-        this.heapLength = initializingQueue.heapLength;
+    // Creates a d-ary heap, where every element has up to `arity` children
+    // instead of 2. The ordering of the queue is exactly the same, only the
+    // layout of the heap changes.
+    HeapPriorityQueue(ComparisonStrategy comparisonStrategy,
+                      PriorityStrategy<E> priorityStrategy,
+                      int arity) {
+        this(comparisonStrategy, priorityStrategy);
+        if(arity < 2) {
+            throw new IllegalArgumentException(
+                    "A heap must allow at least 2 children per element!");
+        }
+        this.arity = arity;
+        this.arityShift = Integer.bitCount(arity) == 1
+                ? Integer.numberOfTrailingZeros(arity)
+                : -1;
     }
 
+    // Adapter for callers that still pass a BiFunction. MinComparisonStrategy
+    // and MaxComparisonStrategy are unwrapped and are not boxed at all.
+    HeapPriorityQueue(BiFunction<Double, Double, Boolean> comparisonStrategy,
+                      PriorityStrategy<E> priorityStrategy) {
+        this(ComparisonStrategy.from(comparisonStrategy), priorityStrategy);
+    }
 
+    // Creates a queue that initially holds the given elements. The elements
+    // are all put into the array first and the heap is then built in one go,
+    // which takes O(n) time instead of the O(n log n) time of adding them one
+    // at a time.
+    HeapPriorityQueue(ComparisonStrategy comparisonStrategy,
+                      PriorityStrategy<E> priorityStrategy,
+                      Collection<? extends E> elements) {
+        this(comparisonStrategy, priorityStrategy);
+        addAll(elements);
+    }
     /**
      * The add(E) method adds an element to the heap queue
      * based on the element's priority.
-     * This is done by adding the element to the end of the array
-     * and then percolating it upward recursively.
+     * This is done by opening a hole at the end of the array
+     * and then percolating it upward until the element fits in it.
      * We then increment heapLength so as to keep the count of elements
      * accurate.
      */
     @Override
     public boolean add(E element) {
-        heapArray.add(element);
+        modCount++;
+        ensureCapacity(heapLength + 1);
+        // Since our array is zero-indexed, the new last slot is at index
+        // heapLength (before it is incremented):
+        percolateUp(heapLength, element,
+                priorityStrategy.getPriority(element),
+                trackedHandleFor(element));
+        heapLength++;
+        return true;
+    }
+
+    /**
+     * Adds an element to the queue, just like add(E), and returns a handle
+     * that keeps track of the position of the element in the heap.
+     * The handle can be used to remove this exact entry from the queue in
+     * O(log n) time with removeByHandle(QueueHandle), even after other
+     * elements have been added or removed.
+     * @param element The element that has to be added
+     * @return Handle to the added element
+     */
+    public QueueHandle<E> addWithHandle(E element) {
+        QueueHandle<E> handle = new QueueHandle<>(this, element);
+        reinsert(handle);
+        return handle;
+    }
+
+    /**
+     * Creates a handle for an element without adding the element, so that
+     * it can be added later with reinsert(QueueHandle). This is used to
+     * restore commands whose elements are no longer queued.
+     * @param element The element that the handle refers to
+     * @return Handle to the element, which is not queued yet
+     */
+    public QueueHandle<E> createHandle(E element) {
+        return new QueueHandle<>(this, element);
+    }
+
+    /**
+     * Adds the element of a handle that was previously removed from this
+     * queue back into it, so that the same handle tracks the element again.
+     * This is used to undo the removal of an element.
+     * @param handle Handle of an element that is no longer in this queue
+     */
+    public void reinsert(QueueHandle<E> handle) {
+        checkOwnership(handle);
+        if(handle.isQueued()) {
+            throw new IllegalStateException("Element is already queued!");
+        }
+
+        modCount++;
+        ensureCapacity(heapLength + 1);
+        ensureHandles();
+        E element = handle.getElement();
+        percolateUp(heapLength, element,
+                priorityStrategy.getPriority(element), handle);
         heapLength++;
-        // Since our array is zero-indexed, the last element will be at index
-        // length - 1:
-        percolateUp(heapLength - 1);
+        startTracking(handle);
+    }
+
+    /**
+     * Adds all given elements to the queue, just like addAll(Collection), and
+     * returns a handle for each of them, in the same order as the elements.
+     * @param elements The elements that have to be added
+     * @return Handles to the added elements
+     */
+    public List<QueueHandle<E>> addAllWithHandles(
+            Collection<? extends E> elements) {
+        List<QueueHandle<E>> newHandles = new ArrayList<>(elements.size());
+        for(E element : elements) {
+            newHandles.add(new QueueHandle<>(this, element));
+        }
+        reinsertAll(newHandles);
+        return newHandles;
+    }
+
+    /**
+     * Adds the elements of several handles that were previously removed from
+     * this queue back into it, like reinsert(QueueHandle). Large batches are
+     * added with one rebuild of the heap, just like in addAll(Collection).
+     * Nothing is added if any of the handles is still queued, or if the same
+     * handle is given twice.
+     * @param handlesToAdd Handles of elements that are no longer in this queue
+     */
+    public void reinsertAll(Collection<QueueHandle<E>> handlesToAdd) {
+        Set<QueueHandle<E>> checkedHandles =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        for(QueueHandle<E> handle : handlesToAdd) {
+            checkOwnership(handle);
+            if(handle.isQueued() || !checkedHandles.add(handle)) {
+                throw new IllegalStateException("Element is already queued!");
+            }
+        }
+
+        int batchSize = handlesToAdd.size();
+        if(batchSize == 0) return;
+
+        modCount++;
+        ensureCapacity(heapLength + batchSize);
+        ensureHandles();
+        boolean rebuild = isRebuildCheaperThanAdding(batchSize);
+        for(QueueHandle<E> handle : handlesToAdd) {
+            E element = handle.getElement();
+            double priority = priorityStrategy.getPriority(element);
+            if(rebuild) {
+                setElement(heapLength, element, priority, handle);
+            } else {
+                percolateUp(heapLength, element, priority, handle);
+            }
+            heapLength++;
+            startTracking(handle);
+        }
+        if(rebuild) {
+            heapify();
+        }
+    }
+
+    /**
+     * Adds all given elements to the queue.
+     * If the batch is large compared to the current size of the heap, then
+     * the elements are appended to the end of the array without percolating
+     * them, and the whole heap is rebuilt from the bottom up, which takes
+     * O(n + k) time. Otherwise, they are added one at a time, which takes
+     * O(k log(n + k)) time but does not touch the rest of the heap.
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        if(elements == this) {
+            throw new IllegalArgumentException(
+                    "A queue cannot be added to itself!");
+        }
+
+        int batchSize = elements.size();
+        if(batchSize == 0) return false;
+
+        modCount++;
+        ensureCapacity(heapLength + batchSize);
+        if(isRebuildCheaperThanAdding(batchSize)) {
+            for(E element : elements) {
+                ensureCapacity(heapLength + 1);
+                setElement(heapLength, element,
+                        priorityStrategy.getPriority(element),
+                        trackedHandleFor(element));
+                heapLength++;
+            }
+            heapify();
+        } else {
+            for(E element : elements) {
+                add(element);
+            }
+        }
         return true;
     }
 
+    /**
+     * Moves all elements of the other queue into this one, and leaves the
+     * other queue empty. The elements are copied to the end of the array and
+     * the heap is rebuilt, which takes O(n + m) time (or they are percolated
+     * up one at a time, if that is cheaper).
+     * Cached priorities are reused if both queues use the same
+     * PriorityStrategy object, otherwise they are calculated again. Handles
+     * of the moved elements keep working, but now belong to this queue.
+     * @param otherQueue The queue whose elements are moved into this one
+     */
+    public void mergeFrom(HeapPriorityQueue<E> otherQueue) {
+        if(otherQueue == this) {
+            throw new IllegalArgumentException(
+                    "A queue cannot be merged with itself!");
+        }
+
+        int batchSize = otherQueue.heapLength;
+        if(batchSize == 0) return;
+
+        // Cached priorities are copied below, so they must be up to date:
+        otherQueue.repositionDirtyEntries();
+        modCount++;
+        ensureCapacity(heapLength + batchSize);
+        if(otherQueue.handles != null) {
+            ensureHandles();
+        }
+        // Strategies of the same class can still calculate different
+        // priorities (two capturing lambdas, or two instances of a
+        // parameterized strategy), so only the same strategy object is
+        // trusted:
+        boolean reusePriorities =
+                priorityStrategy == otherQueue.priorityStrategy;
+        boolean rebuild = isRebuildCheaperThanAdding(batchSize);
+        for(int index = 0; index < batchSize; index++) {
+            E element = otherQueue.elementAt(index);
+            double priority = reusePriorities
+                    ? otherQueue.priorities[index]
+                    : priorityStrategy.getPriority(element);
+            QueueHandle<E> handle = otherQueue.handleAt(index);
+            if(handle != null) {
+                handle.queue = this;
+                if(changeTracking) {
+                    startTracking(handle);
+                } else {
+                    stopTracking(handle);
+                }
+            } else {
+                handle = trackedHandleFor(element);
+            }
+
+            if(rebuild) {
+                setElement(heapLength, element, priority, handle);
+            } else {
+                percolateUp(heapLength, element, priority, handle);
+            }
+            heapLength++;
+        }
+        if(rebuild) {
+            heapify();
+        }
+
+        otherQueue.modCount++;
+        Arrays.fill(otherQueue.heapArray, 0, batchSize, null);
+        if(otherQueue.handles != null) {
+            Arrays.fill(otherQueue.handles, 0, batchSize, null);
+        }
+        otherQueue.heapLength = 0;
+    }
+
     /**
      * Simply returns the root element of the heap, which in the case of this
      * array implementation is the first element of the array.
@@ -96,14 +394,67 @@ public class HeapPriorityQueue<E> extends AbstractQueue<E> {
             return null;
         }
 
-        return heapArray.get(0);
+        repositionDirtyEntries();
+        return elementAt(0);
+    }
+
+    // Returns the cached priority of the root element, so that other queues
+    // in this package can compare the tops of several heaps. The heap must
+    // not be empty.
+    double peekPriority() {
+        repositionDirtyEntries();
+        return priorities[0];
+    }
+
+    // Adds an element whose priority has already been calculated, so that
+    // other classes in this package do not calculate it a second time.
+    void addWithPriority(E element, double priority) {
+        modCount++;
+        ensureCapacity(heapLength + 1);
+        percolateUp(heapLength, element, priority, trackedHandleFor(element));
+        heapLength++;
+    }
+
+    // Replaces the root element with the given one and percolates it down,
+    // which costs a single percolation instead of a poll() and an add().
+    // The heap must not be empty.
+    void replaceTop(E element, double priority) {
+        repositionDirtyEntries();
+        modCount++;
+        if(handles != null && handles[0] != null) {
+            detach(handles[0]);
+        }
+        percolateDown(0, element, priority, trackedHandleFor(element));
+    }
+
+    // Performs the action for every element and its cached priority, in the
+    // order of the heap array.
+    void forEachWithPriority(ObjDoubleConsumer<? super E> action) {
+        for(int index = 0; index < heapLength; index++) {
+            action.accept(elementAt(index), priorities[index]);
+        }
+    }
+
+    // Counts the elements that have a strictly higher priority than the given
+    // one, i.e. that may be above it in the heap while it may not be above
+    // them. This is used to measure how far a relaxed queue strays from the
+    // exact priority order, and takes O(n) time.
+    int countHigherPriorityThan(double priority) {
+        int count = 0;
+        for(int index = 0; index < heapLength; index++) {
+            if(comparisonStrategy.compare(priorities[index], priority) &&
+                    !comparisonStrategy.compare(priority, priorities[index])) {
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
      * poll() will take the max element (which is the first
-     * element of the array) out of the heap, then it will take the last
-     * element in the array and put it at the top of the heap. This top element
-     * will then be percolated downwards.
+     * element of the array) out of the heap, leaving a hole at the top of the
+     * heap. The last element in the array is then percolated downwards from
+     * that hole.
      *
      * Returns null if the heap is empty.
      */
@@ -117,27 +468,40 @@ public class HeapPriorityQueue<E> extends AbstractQueue<E> {
         // Grab the element with maximum priority, which we have to return:
         E maxElement = peek();
 
-        // Replace the root element with the last element (indices are reduced
-        // by 1 since our array index is zero-based):
-        heapArray.set(0, heapArray.get(heapLength - 1));
-
-        // We do not actually need to remove the element from the array, we
-        // can simply reduce the value of our heapLength to indicate that there
-        // are no more elements at the end.
-        heapLength--;
-        heapArray.remove(heapLength);
-
-        // Now we percolate the new root element downwards into the tree, as
-        // per the priority of the element:
-        percolateDown(0);
+        // Remove the root, which leaves a hole at the top of the heap that is
+        // filled by the last element:
+        removeAt(0);
 
         // Finally return the element that we had saved earlier:
         return maxElement;
     }
 
+    /**
+     * Works like poll(), but returns a handle to the removed element instead
+     * of the element itself. If the element was added with a handle, then
+     * that same handle is returned.
+     * The handle can be passed to reinsert(QueueHandle) to undo the removal.
+     * Returns null if the heap is empty.
+     */
+    public QueueHandle<E> pollHandle() {
+        if(heapLength <= 0) {
+            // There are no elements to remove!
+            return null;
+        }
+
+        repositionDirtyEntries();
+        QueueHandle<E> handle = handles != null ? handles[0] : null;
+        if(handle == null) {
+            handle = new QueueHandle<>(this, elementAt(0));
+        }
+        removeAt(0);
+        return handle;
+    }
+
     @Override
     public Iterator<E> iterator() {
-        return new HeapPriorityQueueIterator(this);
+        repositionDirtyEntries();
+        return new HeapPriorityQueueIterator();
     }
 
     @Override
@@ -147,8 +511,9 @@ public class HeapPriorityQueue<E> extends AbstractQueue<E> {
 
     @Override
     public Object[] toArray() {
-        Object[] resultArray = new Object[heapArray.size()];
-        Iterable<E> iterable = () -> new HeapPriorityQueueIterator(this);
+        repositionDirtyEntries();
+        Object[] resultArray = new Object[heapLength];
+        Iterable<E> iterable = HeapPriorityQueueIterator::new;
         int index = 0;
         for(E element : iterable) {
             resultArray[index++] = element;
@@ -171,6 +536,21 @@ public class HeapPriorityQueue<E> extends AbstractQueue<E> {
         return elementArray;
     }
 
+    /**
+     * Checks if the queue holds an element that is equal to the given object.
+     * The heap array is scanned directly, since the order of the elements
+     * does not matter here.
+     */
+    @Override
+    public boolean contains(Object object) {
+        for(int index = 0; index < heapLength; index++) {
+            if(Objects.equals(object, heapArray[index])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder();
@@ -180,34 +560,91 @@ public class HeapPriorityQueue<E> extends AbstractQueue<E> {
         return stringBuilder.toString();
     }
 
-    // STUBBED METHODS
-    @Override
-    public boolean removeIf(Predicate<? super E> filter) {
-        return false;
-    }
-
+    /**
+     * Returns a Spliterator over the elements in the heap array, in no
+     * particular order. It knows its exact size and splits into halves of
+     * the array, so stream() and parallelStream() can spread work evenly
+     * across threads when the order of the elements does not matter (for
+     * example, to calculate statistics over all queued elements).
+     * Use orderedStream() to process the elements in priority order.
+     */
     @Override
     public Spliterator<E> spliterator() {
-        return null;
+        return new HeapArraySpliterator(0, -1, 0);
     }
 
-    @Override
-    public Stream<E> stream() {
-        return null;
+    /**
+     * Returns a sequential Stream of the elements in priority order, the
+     * same order in which poll() would return them. The stream is backed by
+     * the lazy iterator of this queue, so taking the first k elements (for
+     * example with limit(k)) only costs O(k log k) time, and the heap is not
+     * copied.
+     */
+    public Stream<E> orderedStream() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(),
+                heapLength, Spliterator.ORDERED), false);
     }
 
+    /**
+     * Since this queue is unbounded, offering an element always adds it.
+     */
     @Override
-    public Stream<E> parallelStream() {
-        return null;
+    public boolean offer(E element) {
+        return add(element);
     }
 
+    /**
+     * Performs the action for every element in the queue, in no particular
+     * priority order. The heap array is scanned directly, so nothing is
+     * copied. Since the elements are visited in the order of the heap array,
+     * adding them to an empty queue in that same order rebuilds exactly the
+     * same heap.
+     */
     @Override
-    public boolean offer(E e) {
-        return false;
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        for(int index = 0; index < heapLength; index++) {
+            action.accept(elementAt(index));
+            // Fail as soon as the action changes the queue, instead of going
+            // on over an array whose elements have been moved around:
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
     }
 
+    /**
+     * Removes all elements that match the filter.
+     * Rather than removing the elements one at a time, which would take
+     * O(k log n) time, the remaining elements are moved to the front of the
+     * array in a single pass and the heap is then rebuilt in O(n) time.
+     * The filter is first run on every element, before anything is moved, so
+     * the queue is left as it was if the filter throws an exception.
+     */
     @Override
-    public void forEach(Consumer<? super E> action) {}
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+
+        // One bit for each element in the heap, set if it has to be removed:
+        long[] removalBits = null;
+        int expectedModCount = modCount;
+        for(int index = 0; index < heapLength; index++) {
+            if(filter.test(elementAt(index))) {
+                if(removalBits == null) {
+                    removalBits = new long[((heapLength - 1) >> 6) + 1];
+                }
+                removalBits[index >> 6] |= 1L << index;
+            }
+        }
+        if(modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if(removalBits == null) return false;
+
+        removeMarked(removalBits);
+        return true;
+    }
 
 
     /**
@@ -226,7 +663,23 @@ public class HeapPriorityQueue<E> extends AbstractQueue<E> {
          * CommandProcessor to use the appropriate and supported data structure
          * implementations.
          */
-        return heapArray.indexOf(elementToFind);
+        for(int index = 0; index < heapLength; index++) {
+            if(Objects.equals(elementToFind, heapArray[index])) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the index of the exact entry that a handle refers to, in constant
+     * time.
+     * @param handle Handle returned when the element was added to this queue
+     * @return Index of the element if it is queued, else returns -1
+     */
+    public int getIndex(QueueHandle<E> handle) {
+        checkOwnership(handle);
+        return handle.index;
     }
 
     /**
@@ -240,138 +693,789 @@ public class HeapPriorityQueue<E> extends AbstractQueue<E> {
          * details.
          */
 
-        if(index >= heapLength) return;
+        if(index < 0 || index >= heapLength) return;
 
-        heapArray.set(index, heapArray.get(heapLength - 1));
-        heapLength--;
-        heapArray.remove(heapLength);
-        E swappedElement = heapArray.get(index);
-        E parent = heapArray.get(getParentIndexFor(index));
+        removeAt(index);
+    }
 
-        double currentPriority = priorityStrategy.getPriority(swappedElement);
-        double parentPriority = priorityStrategy.getPriority(parent);
+    /**
+     * Delete the exact entry that the handle refers to. The position of the
+     * entry is read from the handle, so this takes O(log n) time.
+     * @param handle Handle returned when the element was added to this queue
+     * @return True if the element was removed, false if it had already been
+     * removed from the queue
+     */
+    public boolean removeByHandle(QueueHandle<E> handle) {
+        checkOwnership(handle);
+        if(!handle.isQueued()) return false;
 
-        if(comparisonStrategy.apply(parentPriority, currentPriority)) {
-            percolateDown(index);
+        removeAt(handle.index);
+        return true;
+    }
+
+    /**
+     * Deletes the exact entries that the handles refer to. Handles of
+     * elements that are no longer queued are ignored.
+     * A few entries are removed one at a time in O(log n) time each, while
+     * for a larger batch the remaining elements are moved together in one
+     * pass and the heap is rebuilt, just like in removeIf(Predicate).
+     * @param handlesToRemove Handles returned when the elements were added to
+     * this queue
+     * @return The number of elements that were removed
+     */
+    public int removeAllByHandle(Collection<QueueHandle<E>> handlesToRemove) {
+        int queuedCount = 0;
+        for(QueueHandle<E> handle : handlesToRemove) {
+            checkOwnership(handle);
+            if(handle.isQueued()) {
+                queuedCount++;
+            }
+        }
+        if(queuedCount == 0) return 0;
+
+        if(!isRebuildCheaperThanUpdating(queuedCount)) {
+            int removedCount = 0;
+            for(QueueHandle<E> handle : handlesToRemove) {
+                if(removeByHandle(handle)) {
+                    removedCount++;
+                }
+            }
+            return removedCount;
+        }
+
+        long[] removalBits = new long[((heapLength - 1) >> 6) + 1];
+        int removedCount = 0;
+        for(QueueHandle<E> handle : handlesToRemove) {
+            int index = handle.index;
+            if(index >= 0 && (removalBits[index >> 6] & (1L << index)) == 0) {
+                removalBits[index >> 6] |= 1L << index;
+                removedCount++;
+            }
+        }
+        removeMarked(removalBits);
+        return removedCount;
+    }
+
+    /**
+     * Re-reads the priority of the element that the handle refers to from the
+     * PriorityStrategy, and moves the element up or down the heap from its
+     * current position until the heap priorities are satisfied again.
+     * This has to be called whenever a queued element is changed in a way
+     * that affects its priority (for example Student.setGpa(double)), and
+     * takes O(log n) time.
+     * @param handle Handle returned when the element was added to this queue
+     * @return True if the element was repositioned, false if it is no longer
+     * in the queue
+     */
+    public boolean updatePriority(QueueHandle<E> handle) {
+        checkOwnership(handle);
+        if(!handle.isQueued()) return false;
+
+        repositionAt(handle.index);
+        return true;
+    }
+
+    /**
+     * Works like updatePriority(QueueHandle) for an element that was added
+     * without a handle. The element has to be found in the heap first, which
+     * takes O(n) time, so updatePriority(QueueHandle) should be preferred.
+     * The element is matched by reference, since a changed element is
+     * usually no longer equal to what it was when it was added.
+     * @param element The element whose priority has changed
+     * @return True if the element was repositioned, false if it was not found
+     */
+    public boolean reprioritize(E element) {
+        for(int index = 0; index < heapLength; index++) {
+            if(heapArray[index] == element) {
+                repositionAt(index);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Re-reads the priorities of all elements in the queue and rebuilds the
+     * heap in O(n) time. This is cheaper than calling
+     * updatePriority(QueueHandle) for every element when a large part of the
+     * queue has changed at once.
+     */
+    public void reprioritizeAll() {
+        modCount++;
+        for(int index = 0; index < heapLength; index++) {
+            priorities[index] = priorityStrategy.getPriority(elementAt(index));
+        }
+        heapify();
+    }
+
+    /**
+     * Copies the contents of the queue into a snapshot, which can be passed
+     * to restore(QueueSnapshot) to undo all changes that were made to the
+     * queue since. This takes O(n) time. Only references to the elements are
+     * copied, so the elements themselves must not be changed in a way that
+     * affects their priority while the snapshot is kept.
+     */
+    public QueueSnapshot<E> snapshot() {
+        repositionDirtyEntries();
+        return new QueueSnapshot<>(this,
+                Arrays.copyOf(heapArray, heapLength),
+                Arrays.copyOf(priorities, heapLength));
+    }
+
+    /**
+     * Replaces the contents of the queue with those of a snapshot that was
+     * taken of this queue. Handles of the elements that were queued are
+     * detached, since the restored elements are no longer tracked by them.
+     * If changes are tracked, the restored elements get new handles, and
+     * their priorities are read again, since they may have changed while the
+     * snapshot was kept.
+     * @param snapshot Snapshot returned by snapshot() of this queue
+     */
+    public void restore(QueueSnapshot<E> snapshot) {
+        if(snapshot.queue != this) {
+            throw new IllegalArgumentException(
+                    "Snapshot does not belong to this queue!");
+        }
+
+        modCount++;
+        if(handles != null) {
+            for(int index = 0; index < heapLength; index++) {
+                if(handles[index] != null) {
+                    detach(handles[index]);
+                }
+            }
+            handles = null;
+        }
+        Arrays.fill(heapArray, 0, heapLength, null);
+
+        int snapshotLength = snapshot.elements.length;
+        ensureCapacity(snapshotLength);
+        System.arraycopy(snapshot.elements, 0, heapArray, 0, snapshotLength);
+        System.arraycopy(snapshot.priorities, 0, priorities, 0,
+                snapshotLength);
+        heapLength = snapshotLength;
+
+        if(changeTracking) {
+            // The detached handles may be reinserted later, and must then be
+            // marked as dirty again when their elements change:
+            for(QueueHandle<E> handle : dirtyHandles) {
+                handle.dirty = false;
+            }
+            dirtyHandles.clear();
+            ensureHandles();
+            for(int index = 0; index < heapLength; index++) {
+                E element = elementAt(index);
+                priorities[index] = priorityStrategy.getPriority(element);
+                setElement(index, element, priorities[index],
+                        trackedHandleFor(element));
+            }
+            heapify();
+        }
+    }
+
+    /**
+     * Starts tracking changes to the elements of this queue. From then on,
+     * every element that implements ChangeTrackable (such as Student) is
+     * watched while it is queued, and marked as dirty whenever it changes in
+     * a way that may affect its priority. Dirty elements are repositioned in
+     * one batch, right before the order of the heap is read again (by peek(),
+     * poll(), the iterator, and so on), so changing a queued element no
+     * longer breaks the heap, and the queue never has to be rebuilt as a
+     * precaution.
+     * Elements that changed before tracking was enabled are not detected, so
+     * reprioritizeAll() should be called first if that may have happened.
+     */
+    public void enableChangeTracking() {
+        if(changeTracking) return;
+
+        changeTracking = true;
+        dirtyHandles = new ArrayList<>();
+        ensureHandles();
+        for(int index = 0; index < heapLength; index++) {
+            if(handles[index] == null) {
+                setElement(index, elementAt(index), priorities[index],
+                        trackedHandleFor(elementAt(index)));
+            } else {
+                startTracking(handles[index]);
+            }
+        }
+    }
+
+    /**
+     * Stops tracking changes to the elements of this queue, after
+     * repositioning the elements that have already changed. The listeners of
+     * the queue are removed from its elements, so that the elements no longer
+     * refer to the queue.
+     */
+    public void disableChangeTracking() {
+        if(!changeTracking) return;
+
+        repositionDirtyEntries();
+        for(int index = 0; index < heapLength; index++) {
+            if(handles[index] != null) {
+                stopTracking(handles[index]);
+            }
+        }
+        changeTracking = false;
+        dirtyHandles = null;
+    }
+
+
+    /*
+     * Repositions every element that changed since the heap was last fixed.
+     * A few elements are moved one at a time, just like in
+     * updatePriority(QueueHandle). If many elements changed, all of their
+     * priorities are read again first and the whole heap is then rebuilt in
+     * O(n) time. Handles of elements that were removed in the meantime are
+     * skipped.
+     */
+    private void repositionDirtyEntries() {
+        if(dirtyHandles == null || dirtyHandles.isEmpty()) return;
+
+        modCount++;
+        if(isRebuildCheaperThanUpdating(dirtyHandles.size())) {
+            for(QueueHandle<E> handle : dirtyHandles) {
+                handle.dirty = false;
+                if(handle.isQueued()) {
+                    priorities[handle.index] =
+                            priorityStrategy.getPriority(handle.getElement());
+                }
+            }
+            heapify();
         } else {
-            percolateUp(index);
+            for(QueueHandle<E> handle : dirtyHandles) {
+                handle.dirty = false;
+                if(handle.isQueued()) {
+                    repositionAt(handle.index);
+                }
+            }
         }
+        dirtyHandles.clear();
+    }
+
+    // Called by the listener of a handle when its element has changed.
+    private void markDirty(QueueHandle<E> handle) {
+        if(!handle.isQueued() || handle.dirty) return;
+
+        handle.dirty = true;
+        dirtyHandles.add(handle);
+    }
+
+    // Returns a new, tracked handle for an element that is added while
+    // changes are tracked, or null if the element does not need a handle.
+    private QueueHandle<E> trackedHandleFor(E element) {
+        if(!changeTracking || !(element instanceof ChangeTrackable)) {
+            return null;
+        }
+
+        QueueHandle<E> handle = new QueueHandle<>(this, element);
+        startTracking(handle);
+        return handle;
+    }
+
+    private void startTracking(QueueHandle<E> handle) {
+        if(!changeTracking || handle.changeListener != null ||
+                !(handle.getElement() instanceof ChangeTrackable)) {
+            return;
+        }
+
+        // The queue is looked up when the listener is called, since the
+        // handle moves to another queue in mergeFrom(HeapPriorityQueue):
+        handle.changeListener = () -> handle.queue.markDirty(handle);
+        ((ChangeTrackable) handle.getElement())
+                .addChangeListener(handle.changeListener);
+    }
+
+    private void stopTracking(QueueHandle<E> handle) {
+        if(handle.changeListener == null) return;
+
+        ((ChangeTrackable) handle.getElement())
+                .removeChangeListener(handle.changeListener);
+        handle.changeListener = null;
+    }
+
+    // Marks the handle of an element that leaves the queue as no longer
+    // queued, and stops tracking the element.
+    private void detach(QueueHandle<E> handle) {
+        handle.index = -1;
+        stopTracking(handle);
     }
 
 
     /*
-     * In this method, we have an element at the currentIndex and we have to
-     * check if it satisfies the heap's priority. If it does not, then we have
-     * to move it upwards by swapping it with its parent, and then we call
-     * the percolateUp(int) method recursively.
-     * This time, we pass in the parent index since we have swapped the current
-     * element with its parent.
-     * This goes on till we reach the root, or if the heap priority is
-     * satisfied.
+     * Removes the element at the given (valid) index. The last element of the
+     * heap is taken out of the array and used to fill the hole that is left
+     * behind. It could belong either below or above the hole, so we first try
+     * to percolate it downwards and, if it did not move, upwards.
+     */
+    private void removeAt(int index) {
+        modCount++;
+        if(handles != null && handles[index] != null) {
+            detach(handles[index]);
+        }
+
+        // Take the last element out of the array (indices are reduced by 1
+        // since our array index is zero-based). We clear its slot so that the
+        // array does not keep a reference to it:
+        heapLength--;
+        E lastElement = elementAt(heapLength);
+        double lastPriority = priorities[heapLength];
+        QueueHandle<E> lastHandle = handleAt(heapLength);
+        heapArray[heapLength] = null;
+        if(handles != null) {
+            handles[heapLength] = null;
+        }
+
+        // If the removed element was the last one, nothing has to be moved:
+        if(index == heapLength) return;
+
+        if(percolateDown(index, lastElement, lastPriority, lastHandle)
+                == index) {
+            percolateUp(index, lastElement, lastPriority, lastHandle);
+        }
+    }
+
+
+    /*
+     * Removes every element whose bit is set in removalBits. The remaining
+     * elements are moved to the front of the array in a single pass, and the
+     * heap is then rebuilt in O(n) time.
+     */
+    private void removeMarked(long[] removalBits) {
+        modCount++;
+        int newLength = 0;
+        for(int index = 0; index < heapLength; index++) {
+            if((removalBits[index >> 6] & (1L << index)) != 0) {
+                if(handles != null && handles[index] != null) {
+                    detach(handles[index]);
+                }
+            } else {
+                if(newLength != index) {
+                    moveElement(index, newLength);
+                }
+                newLength++;
+            }
+        }
+
+        // Clear the slots that are no longer used, so that the removed
+        // elements can be garbage collected:
+        Arrays.fill(heapArray, newLength, heapLength, null);
+        if(handles != null) {
+            Arrays.fill(handles, newLength, heapLength, null);
+        }
+        heapLength = newLength;
+
+        heapify();
+    }
+
+    /*
+     * Recalculates the priority of the element at the given (valid) index and
+     * moves it to where it belongs. The slot of the element is treated as a
+     * hole: the element can only move either upwards or downwards, so if it
+     * did not move upwards we try to percolate it downwards.
+     */
+    private void repositionAt(int index) {
+        E element = elementAt(index);
+        QueueHandle<E> handle = handleAt(index);
+        double priority = priorityStrategy.getPriority(element);
+
+        modCount++;
+        if(percolateUp(index, element, priority, handle) == index) {
+            percolateDown(index, element, priority, handle);
+        }
+    }
+
+    /*
+     * Adding k elements one at a time costs up to k * log(n + k) comparisons,
+     * while rebuilding the heap costs about n + k, so we rebuild whenever
+     * that is the cheaper of the two. This is always the case for an empty
+     * heap.
      */
-    private void percolateUp(int currentIndex) {
-        int parentIndex = getParentIndexFor(currentIndex);
+    private boolean isRebuildCheaperThanAdding(int batchSize) {
+        long newLength = (long) heapLength + batchSize;
+        int heapDepth = 64 - Long.numberOfLeadingZeros(newLength);
+        return (long) batchSize * heapDepth >= newLength;
+    }
 
-        double parentPriority = priorityStrategy.getPriority(heapArray.get(parentIndex));
-        double currentPriority = priorityStrategy.getPriority(heapArray.get(currentIndex));
+    // Removing or repositioning k elements one at a time costs up to
+    // k * log(n) comparisons, while rebuilding the heap (after compacting the
+    // array, or reading the changed priorities) costs about 2n.
+    private boolean isRebuildCheaperThanUpdating(int batchSize) {
+        int heapDepth = 32 - Integer.numberOfLeadingZeros(heapLength);
+        return (long) batchSize * heapDepth >= 2L * heapLength;
+    }
 
-        if((parentIndex != currentIndex) &&
-                !(comparisonStrategy.apply(parentPriority, currentPriority))) {
+    /*
+     * Turns the whole array into a heap, from the bottom up (Floyd's
+     * algorithm). Every element that has children is percolated downwards,
+     * starting from the last one (which is the parent of the last element).
+     * Since most elements are close to the bottom of the heap and only move a
+     * few levels, this takes O(n) time.
+     */
+    private void heapify() {
+        if(heapLength < 2) return;
 
-            swapValuesAtIndices(parentIndex, currentIndex);
-            percolateUp(parentIndex);
+        for(int index = getParentIndexFor(heapLength - 1); index >= 0;
+                index--) {
+            percolateDown(index, elementAt(index), priorities[index],
+                    handleAt(index));
+        }
+    }
+
+    /*
+     * In this method, we have a hole at the currentIndex and an element that
+     * has to be placed into the heap. While the element does not satisfy the
+     * heap's priority with the parent of the hole, we move the parent down
+     * into the hole, which moves the hole upwards.
+     * This goes on till we reach the root, or if the heap priority is
+     * satisfied, at which point the element is placed into the hole.
+     * Compared to swapping the element with its parent at every level, this
+     * writes each slot only once.
+     * The final index of the element is returned.
+     */
+    private int percolateUp(int currentIndex, E element, double priority,
+                            QueueHandle<E> handle) {
+        while(currentIndex > 0) {
+            int parentIndex = getParentIndexFor(currentIndex);
+            if(comparisonStrategy.compare(priorities[parentIndex], priority)) {
+                break;
+            }
+            moveElement(parentIndex, currentIndex);
+            currentIndex = parentIndex;
         }
+        setElement(currentIndex, element, priority, handle);
+        return currentIndex;
     }
 
     /*
-     * In this method, we have an element at the currentIndex and we have to
-     * check if it satisfies the heap's priority. If it is not satisfied, then
-     * we have to move it downwards by swapping it with its child, and then we
-     * call the percolateDown(int) method recursively.
-     * If both children do not satisfy the heap priority, then we choose the
-     * right child.
-     * This time, we pass in the child index since we have swapped the current
-     * element with its child.
+     * In this method, we have a hole at the currentIndex and an element that
+     * has to be placed into the heap. We pick the child of the hole with the
+     * top priority (a later child is picked over an earlier one unless the
+     * earlier child satisfies the heap's priority with it). While the element
+     * does not satisfy the heap's priority with that child, we move the child
+     * up into the hole, which moves the hole downwards.
+     * Once the heap priority is satisfied, or the hole has no children, the
+     * element is placed into the hole.
+     * The final index of the element is returned.
      */
-    private void percolateDown(int currentIndex) {
-        int leftChildIndex = getLeftChildIndexFor(currentIndex);
-        int rightChildIndex = getRightChildIndexFor(currentIndex);
-        int topPriorityIndex = currentIndex;
+    private int percolateDown(int currentIndex, E element, double priority,
+                              QueueHandle<E> handle) {
+        if(heapLength < 2) {
+            setElement(currentIndex, element, priority, handle);
+            return currentIndex;
+        }
 
-        double topPriority, leftChildPriority, rightChildPriority;
+        // Only the elements up to the parent of the last element have
+        // children. Checking against this index (instead of computing the
+        // index of the first child) also keeps the child index from
+        // overflowing on very large heaps:
+        int lastParentIndex = getParentIndexFor(heapLength - 1);
 
-        // Confirm that we aren't checking a non existing element:
-        if((leftChildIndex <= heapLength - 1)) {
-            topPriority = priorityStrategy.getPriority(
-                    heapArray.get(topPriorityIndex));
-            leftChildPriority = priorityStrategy.getPriority(
-                    heapArray.get(leftChildIndex));
+        while(currentIndex <= lastParentIndex) {
+            int childIndex = getFirstChildIndexFor(currentIndex);
+            // Confirm that we aren't checking non existing elements:
+            int endIndex = Math.min(childIndex + arity, heapLength);
 
-            // If the priority is not satisfied, then save the index of the
-            // child:
-            if(!comparisonStrategy.apply(topPriority, leftChildPriority)) {
-                topPriorityIndex = leftChildIndex;
+            int topPriorityIndex = childIndex;
+            double topPriority = priorities[childIndex];
+            while(++childIndex < endIndex) {
+                double childPriority = priorities[childIndex];
+                if(!comparisonStrategy.compare(topPriority, childPriority)) {
+                    topPriorityIndex = childIndex;
+                    topPriority = childPriority;
+                }
             }
+
+            if(comparisonStrategy.compare(priority, topPriority)) {
+                break;
+            }
+            moveElement(topPriorityIndex, currentIndex);
+            currentIndex = topPriorityIndex;
         }
+        setElement(currentIndex, element, priority, handle);
+        return currentIndex;
+    }
 
-        // Confirm that we aren't checking a non existing element:
-        if((rightChildIndex <= heapLength - 1)) {
-            topPriority = priorityStrategy.getPriority(
-                    heapArray.get(topPriorityIndex));
-            rightChildPriority = priorityStrategy.getPriority(
-                    heapArray.get(rightChildIndex));
+    private void moveElement(int fromIndex, int toIndex) {
+        heapArray[toIndex] = heapArray[fromIndex];
+        priorities[toIndex] = priorities[fromIndex];
+        if(handles != null) {
+            QueueHandle<E> handle = handles[fromIndex];
+            handles[toIndex] = handle;
+            if(handle != null) {
+                handle.index = toIndex;
+            }
+        }
+    }
 
-            // If the priority is not satisfied, then save the index of the
-            // child:
-            if(!comparisonStrategy.apply(topPriority, rightChildPriority)) {
-                topPriorityIndex = rightChildIndex;
+    private void setElement(int index, E element, double priority,
+                            QueueHandle<E> handle) {
+        heapArray[index] = element;
+        priorities[index] = priority;
+        if(handles != null) {
+            handles[index] = handle;
+            if(handle != null) {
+                handle.index = index;
             }
         }
+    }
+
+    private QueueHandle<E> handleAt(int index) {
+        return handles != null ? handles[index] : null;
+    }
+
+    // Creates the handles array the first time a handle is needed.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void ensureHandles() {
+        if(handles == null) {
+            handles = (QueueHandle<E>[]) new QueueHandle[heapArray.length];
+        }
+    }
 
-        // If the priority was found to be inconsistent then swap with the
-        // child and then percolate it downwards:
-        if(topPriorityIndex != currentIndex) {
-            swapValuesAtIndices(topPriorityIndex, currentIndex);
-            percolateDown(topPriorityIndex);
+    private void checkOwnership(QueueHandle<E> handle) {
+        if(handle.queue != this) {
+            throw new IllegalArgumentException(
+                    "Handle does not belong to this queue!");
         }
     }
 
-    private void swapValuesAtIndices(int indexOne, int indexTwo) {
-        E elementToSwap = heapArray.get(indexOne);
-        heapArray.set(indexOne, heapArray.get(indexTwo));
-        heapArray.set(indexTwo, elementToSwap);
+    // Elements are only ever written into heapArray as E, so this cast is
+    // always safe.
+    @SuppressWarnings("unchecked")
+    private E elementAt(int index) {
+        return (E) heapArray[index];
     }
 
-    private int getParentIndexFor(int index) {
-        return (int) Math.floor((index - 1) / 2);
+    /*
+     * Grows heapArray and priorities whenever they cannot hold the given
+     * number of elements. Small heaps double in size, while larger heaps grow
+     * by 50% so that we do not over allocate memory for very large heaps.
+     */
+    private void ensureCapacity(int requiredCapacity) {
+        int currentCapacity = heapArray.length;
+        if(requiredCapacity <= currentCapacity) return;
+
+        if(requiredCapacity > MAX_CAPACITY || requiredCapacity < 0) {
+            throw new OutOfMemoryError("Heap cannot hold more than "
+                    + MAX_CAPACITY + " elements!");
+        }
+
+        long newCapacity = currentCapacity < 64
+                ? (currentCapacity * 2L) + 2
+                : currentCapacity + (currentCapacity >> 1);
+        newCapacity = Math.min(Math.max(newCapacity, requiredCapacity),
+                MAX_CAPACITY);
+
+        heapArray = Arrays.copyOf(heapArray, (int) newCapacity);
+        priorities = Arrays.copyOf(priorities, (int) newCapacity);
+        if(handles != null) {
+            handles = Arrays.copyOf(handles, (int) newCapacity);
+        }
     }
 
-    private int getLeftChildIndexFor(int index) {
-        return (2 * index) + 1;
+    private int getParentIndexFor(int index) {
+        return arityShift >= 0
+                ? (index - 1) >>> arityShift
+                : (index - 1) / arity;
     }
 
-    private int getRightChildIndexFor(int index) {
-        return (2 * index) + 2;
+    // The children of an element are stored right after each other, starting
+    // at this index.
+    private int getFirstChildIndexFor(int index) {
+        return arityShift >= 0
+                ? (index << arityShift) + 1
+                : (arity * index) + 1;
     }
 
 
+    /*
+     * This iterator returns the elements of the queue in priority order,
+     * without copying or modifying the heap.
+     * The top element of the heap is always the root. Once an element has
+     * been returned, the next element has to be either one of its children,
+     * or one of the elements that were candidates before. So we keep the
+     * indices of all candidates (the "frontier") in a small heap of its own,
+     * ordered by the priorities of the elements they point to. Every call to
+     * next() takes the top index out of the frontier and adds the indices of
+     * its children to it.
+     * The frontier only grows by (arity - 1) indices per returned element, so
+     * iterating over the first k elements takes O(k log k) time and memory,
+     * no matter how large the queue is.
+     */
     private class HeapPriorityQueueIterator implements Iterator<E> {
-        // We'll create a copy of the queue's heap and remove elements from
-        // the copy in order to iterate.
-        AbstractQueue<E> heapCopy;
+        private int[] frontier = new int[DEFAULT_CAPACITY];
+        private int frontierLength = 0;
+
+        // The iterator reads the heap array directly, so it cannot continue
+        // once the queue has been modified.
+        private final int expectedModCount = modCount;
 
-        HeapPriorityQueueIterator(HeapPriorityQueue<E> initializingHeap) {
-            heapCopy = new HeapPriorityQueue<>(initializingHeap);
+        HeapPriorityQueueIterator() {
+            if(heapLength > 0) {
+                pushIndex(0);
+            }
         }
 
         @Override
         public boolean hasNext() {
-            return heapCopy.size() > 0;
+            return frontierLength > 0;
         }
 
         @Override
         public E next() {
-            return heapCopy.poll();
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if(frontierLength <= 0) {
+                throw new NoSuchElementException();
+            }
+
+            int topIndex = popIndex();
+
+            // Only the elements up to the parent of the last element have
+            // children:
+            if(heapLength > 1 &&
+                    topIndex <= getParentIndexFor(heapLength - 1)) {
+                int firstChildIndex = getFirstChildIndexFor(topIndex);
+                int endIndex = Math.min(firstChildIndex + arity, heapLength);
+                for(int childIndex = firstChildIndex; childIndex < endIndex;
+                        childIndex++) {
+                    pushIndex(childIndex);
+                }
+            }
+
+            return elementAt(topIndex);
+        }
+
+        /*
+         * Percolates a new index upwards from the end of the frontier, just
+         * like HeapPriorityQueue.add(E) does with elements.
+         */
+        private void pushIndex(int heapIndex) {
+            if(frontierLength == frontier.length) {
+                frontier = Arrays.copyOf(frontier, frontierLength * 2);
+            }
+
+            double priority = priorities[heapIndex];
+            int currentIndex = frontierLength++;
+            while(currentIndex > 0) {
+                int parentIndex = (currentIndex - 1) >>> 1;
+                if(comparisonStrategy.compare(priorities[frontier[parentIndex]],
+                        priority)) {
+                    break;
+                }
+                frontier[currentIndex] = frontier[parentIndex];
+                currentIndex = parentIndex;
+            }
+            frontier[currentIndex] = heapIndex;
+        }
+
+        /*
+         * Takes the top index out of the frontier and percolates the last
+         * index downwards from the root, just like HeapPriorityQueue.poll()
+         * does with elements.
+         */
+        private int popIndex() {
+            int topIndex = frontier[0];
+            int lastIndex = frontier[--frontierLength];
+            if(frontierLength == 0) return topIndex;
+
+            double priority = priorities[lastIndex];
+            int currentIndex = 0;
+            int firstLeafIndex = frontierLength >>> 1;
+            while(currentIndex < firstLeafIndex) {
+                int childIndex = (2 * currentIndex) + 1;
+                int rightChildIndex = childIndex + 1;
+                if(rightChildIndex < frontierLength &&
+                        !comparisonStrategy.compare(
+                                priorities[frontier[childIndex]],
+                                priorities[frontier[rightChildIndex]])) {
+                    childIndex = rightChildIndex;
+                }
+                if(comparisonStrategy.compare(priority,
+                        priorities[frontier[childIndex]])) {
+                    break;
+                }
+                frontier[currentIndex] = frontier[childIndex];
+                currentIndex = childIndex;
+            }
+            frontier[currentIndex] = lastIndex;
+            return topIndex;
+        }
+    }
+
+    /*
+     * Spliterator over the range [index, fence) of the heap array. The fence
+     * is only set (to heapLength) when the spliterator is first used, so that
+     * elements added between creating the spliterator and using it are still
+     * covered, just like the spliterator of an ArrayList.
+     * Like the iterator, it fails with a ConcurrentModificationException if
+     * the queue was modified while it was in use.
+     */
+    private class HeapArraySpliterator implements Spliterator<E> {
+        private int index;
+        private int fence;
+        private int expectedModCount;
+
+        HeapArraySpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            if(fence < 0) {
+                fence = heapLength;
+                expectedModCount = modCount;
+            }
+            return fence;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int lowIndex = index;
+            int middleIndex = (lowIndex + getFence()) >>> 1;
+            if(lowIndex >= middleIndex) return null;
+
+            index = middleIndex;
+            return new HeapArraySpliterator(lowIndex, middleIndex,
+                    expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int highIndex = getFence();
+            if(index >= highIndex) return false;
+
+            E element = elementAt(index++);
+            action.accept(element);
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            int highIndex = getFence();
+            while(index < highIndex) {
+                action.accept(elementAt(index++));
+            }
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED;
         }
     }
 }
@@ -0,0 +1,377 @@
+package datastructures.priorityqueue;
+
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * MultiQueuePriorityQueue is a thread-safe priority queue that trades exact
+ * priority order for throughput, for jobs where an approximate order is good
+ * enough.
+ * Even a well locked single heap makes every poll wait for the lock of its
+ * root. Instead, the elements are spread over several independent
+ * HeapPriorityQueue "shards", each with its own lock (c shards for each of
+ * the P processors, which is known as a MultiQueue):
+ * - add(E) puts the element into a random shard.
+ * - poll() looks at the top elements of two random shards and removes the
+ *   better one of the two.
+ * Threads rarely pick the same shard at the same time, so they rarely wait
+ * for each other. If a shard is locked anyway, another random shard is
+ * tried instead of waiting.
+ * The element that poll() returns is not always the one with the top
+ * priority in the whole queue, but it is close to it: on average only a
+ * small number of elements (in the order of the number of shards) have a
+ * higher priority. This "rank error" can be measured by sampling polls, see
+ * getMeanRankError().
+ *
+ * NOTE 1: This data structure does not prevent adding the same
+ * object twice.
+ * NOTE 2: Null elements are not allowed, since poll() and peek() use null to
+ * indicate that the queue is empty.
+ * NOTE 3: The iterator and toArray() return the elements in no particular
+ * order.
+ */
+public class MultiQueuePriorityQueue<E> extends AbstractQueue<E> {
+
+    // Number of shards for every available processor, if it is not given.
+    static final int DEFAULT_SHARDS_PER_THREAD = 2;
+
+    // Number of random shards that are tried with tryLock() before simply
+    // waiting for the lock of a shard.
+    private static final int MAX_LOCK_ATTEMPTS = 8;
+
+    private List<Shard<E>> shards;
+
+    private ComparisonStrategy comparisonStrategy;
+
+    // Every rankErrorSamplingInterval-th poll (on average) is measured. A
+    // measured poll locks every shard, so this should be large. Sampling is
+    // disabled if it is 0.
+    private int rankErrorSamplingInterval = 0;
+    private LongAdder sampledPolls = new LongAdder();
+    private LongAdder totalRankError = new LongAdder();
+
+
+    MultiQueuePriorityQueue(ComparisonStrategy comparisonStrategy,
+                            PriorityStrategy<E> priorityStrategy) {
+        this(comparisonStrategy, priorityStrategy, DEFAULT_SHARDS_PER_THREAD *
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    MultiQueuePriorityQueue(ComparisonStrategy comparisonStrategy,
+                            PriorityStrategy<E> priorityStrategy,
+                            int shardCount) {
+        if(shardCount < 1) {
+            throw new IllegalArgumentException(
+                    "A MultiQueue needs at least 1 shard!");
+        }
+
+        this.comparisonStrategy = comparisonStrategy;
+        List<Shard<E>> shardList = new ArrayList<>(shardCount);
+        for(int i = 0; i < shardCount; i++) {
+            shardList.add(new Shard<>(new HeapPriorityQueue<>(
+                    comparisonStrategy, priorityStrategy)));
+        }
+        this.shards = Collections.unmodifiableList(shardList);
+    }
+
+
+    /**
+     * Enables measuring the rank error of about one in every
+     * samplingInterval polls, or disables it if the interval is 0.
+     */
+    public void setRankErrorSamplingInterval(int samplingInterval) {
+        if(samplingInterval < 0) {
+            throw new IllegalArgumentException(
+                    "Sampling interval cannot be negative!");
+        }
+        this.rankErrorSamplingInterval = samplingInterval;
+    }
+
+    /**
+     * Returns the average rank error of the sampled polls, i.e. the number of
+     * elements in the queue that had a higher priority than the polled
+     * element. A rank error of 0 means that the queue behaved exactly like a
+     * regular priority queue. Returns 0 if no poll was sampled yet.
+     */
+    public double getMeanRankError() {
+        long sampleCount = sampledPolls.sum();
+        return sampleCount == 0
+                ? 0
+                : (double) totalRankError.sum() / sampleCount;
+    }
+
+    public long getRankErrorSampleCount() {
+        return sampledPolls.sum();
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+
+    @Override
+    public boolean add(E element) {
+        return offer(element);
+    }
+
+    /**
+     * Adds the element to a random shard. Since the queue is unbounded, this
+     * always succeeds.
+     */
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+
+        Shard<E> shard = lockRandomShard();
+        try {
+            shard.heap.add(element);
+            shard.refreshTop();
+        } finally {
+            shard.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the better of the top elements of two random shards. Returns
+     * null if the whole queue is empty.
+     */
+    @Override
+    public E poll() {
+        int samplingInterval = rankErrorSamplingInterval;
+        if(samplingInterval > 0 &&
+                ThreadLocalRandom.current().nextInt(samplingInterval) == 0) {
+            return pollAndMeasureRankError();
+        }
+
+        for(int attempt = 0; attempt < MAX_LOCK_ATTEMPTS; attempt++) {
+            Shard<E> shard = pickBetterOfTwoShards();
+            if(shard == null) {
+                shard = findNonEmptyShard();
+                if(shard == null) {
+                    // There are no elements to remove!
+                    return null;
+                }
+            }
+
+            if(shard.lock.tryLock()) {
+                try {
+                    E element = shard.heap.poll();
+                    shard.refreshTop();
+                    if(element != null) {
+                        return element;
+                    }
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+        }
+
+        // The shards we picked were busy (or emptied by other threads), so
+        // we go through all shards and wait for their locks instead:
+        for(Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                E element = shard.heap.poll();
+                shard.refreshTop();
+                if(element != null) {
+                    return element;
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the better of the top elements of two random shards, without
+     * removing it. Like poll(), this is only an approximation of the top
+     * element of the whole queue.
+     */
+    @Override
+    public E peek() {
+        Shard<E> shard = pickBetterOfTwoShards();
+        if(shard == null) {
+            shard = findNonEmptyShard();
+        }
+        while(shard != null) {
+            shard.lock.lock();
+            try {
+                E element = shard.heap.peek();
+                if(element != null) {
+                    return element;
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+            shard = findNonEmptyShard();
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for(Shard<E> shard : shards) {
+            size += shard.size;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Object[] toArray() {
+        List<Object> elements = new ArrayList<>();
+        for(Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.heap.forEach(elements::add);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return elements.toArray();
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements, in no particular
+     * order. Each shard is copied while holding its lock, so the snapshot
+     * may miss concurrent changes to other shards.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        List<E> elements = new ArrayList<>();
+        for(Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.heap.forEach(elements::add);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return Collections.unmodifiableList(elements).iterator();
+    }
+
+
+    /*
+     * Picks two random shards and returns the one with the better top
+     * element, based on the top priorities that the shards publish. Returns
+     * null if both are empty.
+     */
+    private Shard<E> pickBetterOfTwoShards() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Shard<E> shardOne = shards.get(random.nextInt(shards.size()));
+        Shard<E> shardTwo = shards.get(random.nextInt(shards.size()));
+
+        // Read each shard's published state only once, since other threads
+        // may change it:
+        int sizeOne = shardOne.size;
+        int sizeTwo = shardTwo.size;
+        if(sizeOne == 0) return sizeTwo == 0 ? null : shardTwo;
+        if(sizeTwo == 0) return shardOne;
+
+        return comparisonStrategy.compare(shardOne.topPriority,
+                shardTwo.topPriority) ? shardOne : shardTwo;
+    }
+
+    // Returns the first non-empty shard, starting from a random one, or null
+    // if all shards are empty.
+    private Shard<E> findNonEmptyShard() {
+        int shardCount = shards.size();
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+        for(int i = 0; i < shardCount; i++) {
+            Shard<E> shard = shards.get((start + i) % shardCount);
+            if(shard.size > 0) {
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    // Locks a random shard, trying other random shards if it is busy.
+    private Shard<E> lockRandomShard() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int attempt = 0; attempt < MAX_LOCK_ATTEMPTS; attempt++) {
+            Shard<E> shard = shards.get(random.nextInt(shards.size()));
+            if(shard.lock.tryLock()) {
+                return shard;
+            }
+        }
+
+        Shard<E> shard = shards.get(random.nextInt(shards.size()));
+        shard.lock.lock();
+        return shard;
+    }
+
+    /*
+     * Polls like poll(), but first locks every shard (always in the same
+     * order, so that two measuring threads cannot deadlock) and counts the
+     * elements in the whole queue that have a higher priority than the polled
+     * element. Regular operations only ever hold one lock at a time, so they
+     * cannot deadlock with this either.
+     */
+    private E pollAndMeasureRankError() {
+        for(Shard<E> shard : shards) {
+            shard.lock.lock();
+        }
+        try {
+            Shard<E> shard = pickBetterOfTwoShards();
+            if(shard == null) {
+                shard = findNonEmptyShard();
+                if(shard == null) return null;
+            }
+
+            double polledPriority = shard.heap.peekPriority();
+            E element = shard.heap.poll();
+            shard.refreshTop();
+
+            long rankError = 0;
+            for(Shard<E> otherShard : shards) {
+                rankError += otherShard.heap.countHigherPriorityThan(
+                        polledPriority);
+            }
+            sampledPolls.increment();
+            totalRankError.add(rankError);
+
+            return element;
+        } finally {
+            for(Shard<E> shard : shards) {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /*
+     * A shard is a HeapPriorityQueue with its own lock. It also publishes its
+     * size and the priority of its top element in volatile fields, so that
+     * other threads can choose between shards without taking their locks.
+     */
+    private static class Shard<E> {
+        private final HeapPriorityQueue<E> heap;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile int size = 0;
+        private volatile double topPriority;
+
+        Shard(HeapPriorityQueue<E> heap) {
+            this.heap = heap;
+        }
+
+        // Must be called while holding the lock, after changing the heap.
+        void refreshTop() {
+            if(!heap.isEmpty()) {
+                topPriority = heap.peekPriority();
+            }
+            size = heap.size();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package datastructures.priorityqueue;
+
+import models.OffHeapStudentStore;
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.OffHeapPriorityStrategy;
+
+import java.util.Arrays;
+
+/*
+ * OffHeapPriorityQueue is a heap based priority queue of the students in an
+ * OffHeapStudentStore. It works like the RowIdPriorityQueue, except that it
+ * holds the long offsets of the student records instead of int row numbers.
+ * The students themselves live outside of the Java heap, and the heap of the
+ * queue is just a long array and a double array of the cached priorities.
+ * Neither contains any references, so the garbage collector does not have
+ * to scan them however many students are queued.
+ *
+ * NOTE 1: This data structure does not prevent adding the same
+ * record twice.
+ * NOTE 2: This implementation makes NO GUARANTEE on the ordering
+ * of records with the same priority value.
+ * NOTE 3: If a record in the store is changed while it is queued, the queue
+ * is not updated.
+ */
+public class OffHeapPriorityQueue {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Some VMs reserve header words in an array, so this is the largest
+    // safe array size.
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    // Returned by peek() and poll() if the queue is empty.
+    public static final long NO_RECORD = -1;
+
+    private long[] heapArray = new long[DEFAULT_CAPACITY];
+    private double[] priorities = new double[DEFAULT_CAPACITY];
+    private int heapLength = 0;
+
+    // Moves the record offsets for PrimitiveHeapSift. It is created once,
+    // instead of for every percolation.
+    private final PrimitiveHeapSift.EntryMover entryMover =
+            (fromIndex, toIndex) -> heapArray[toIndex] = heapArray[fromIndex];
+
+    private OffHeapStudentStore store;
+    private ComparisonStrategy comparisonStrategy;
+    private OffHeapPriorityStrategy priorityStrategy;
+
+
+    OffHeapPriorityQueue(OffHeapStudentStore store,
+                         ComparisonStrategy comparisonStrategy,
+                         OffHeapPriorityStrategy priorityStrategy) {
+        this.store = store;
+        this.comparisonStrategy = comparisonStrategy;
+        this.priorityStrategy = priorityStrategy;
+    }
+
+
+    /**
+     * Adds a record of the store to the queue, based on its priority.
+     */
+    public void add(long offset) {
+        double priority = priorityStrategy.getPriority(store, offset);
+        ensureCapacity(heapLength + 1L);
+        percolateUp(heapLength, offset, priority);
+        heapLength++;
+    }
+
+    /**
+     * Adds every record of the store to the queue. The records are put into
+     * the array first and the heap is then built from the bottom up, which
+     * takes O(n) time.
+     */
+    public void addAllRecords() {
+        long recordCount = store.size();
+        ensureCapacity(heapLength + recordCount);
+        for(long record = 0; record < recordCount; record++) {
+            long offset = record * OffHeapStudentStore.RECORD_SIZE;
+            heapArray[heapLength] = offset;
+            priorities[heapLength] =
+                    priorityStrategy.getPriority(store, offset);
+            heapLength++;
+        }
+
+        for(int index = (heapLength >>> 1) - 1; index >= 0; index--) {
+            percolateDown(index, heapArray[index], priorities[index]);
+        }
+    }
+
+    /**
+     * Returns the offset of the record with the top priority, or NO_RECORD
+     * if the queue is empty.
+     */
+    public long peek() {
+        return heapLength > 0 ? heapArray[0] : NO_RECORD;
+    }
+
+    /**
+     * Removes and returns the offset of the record with the top priority,
+     * or NO_RECORD if the queue is empty.
+     */
+    public long poll() {
+        if(heapLength <= 0) {
+            // There are no records to remove!
+            return NO_RECORD;
+        }
+
+        long topOffset = heapArray[0];
+        heapLength--;
+        if(heapLength > 0) {
+            percolateDown(0, heapArray[heapLength], priorities[heapLength]);
+        }
+        return topOffset;
+    }
+
+    public int size() {
+        return heapLength;
+    }
+
+    public boolean isEmpty() {
+        return heapLength == 0;
+    }
+
+
+    // Percolates the offset upwards from the hole at currentIndex, see
+    // PrimitiveHeapSift.percolateUp().
+    private void percolateUp(int currentIndex, long offset, double priority) {
+        heapArray[PrimitiveHeapSift.percolateUp(priorities, comparisonStrategy,
+                entryMover, currentIndex, priority)] = offset;
+    }
+
+    // Percolates the offset downwards from the hole at currentIndex, see
+    // PrimitiveHeapSift.percolateDown().
+    private void percolateDown(int currentIndex, long offset,
+                               double priority) {
+        int index = PrimitiveHeapSift.percolateDown(priorities, heapLength,
+                comparisonStrategy, entryMover, currentIndex, priority);
+        heapArray[index] = offset;
+    }
+
+    private void ensureCapacity(long requiredCapacity) {
+        if(requiredCapacity <= heapArray.length) return;
+        if(requiredCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Queue cannot hold "
+                    + requiredCapacity + " records!");
+        }
+
+        int newCapacity = (int) Math.min(MAX_CAPACITY,
+                Math.max(requiredCapacity, heapArray.length * 2L));
+        heapArray = Arrays.copyOf(heapArray, newCapacity);
+        priorities = Arrays.copyOf(priorities, newCapacity);
+    }
+}
@@ -0,0 +1,272 @@
+package datastructures.priorityqueue;
+
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * PackedKeyPriorityQueue is a binary heap in which every element is ordered
+ * by a single long key, instead of by its priority and a ComparisonStrategy.
+ * When an element is added, its priority is turned into a 32 bit integer
+ * that sorts in the same order as the priorities (the top priority gets the
+ * lowest integer, for a min queue as well as a max queue). This integer is
+ * stored in the high half of the key, and the sequence number of the element
+ * (which counts up with every added element) in the low half. A smaller key
+ * therefore always means a higher priority or, for equal priorities, an
+ * element that was added earlier. Every comparison during percolation is a
+ * single comparison of two longs, and elements with equal priorities are
+ * returned first-come, first-served.
+ *
+ * NOTE 1: This data structure does not prevent adding the same
+ * object twice.
+ * NOTE 2: Priorities are rounded to float precision (about 7 significant
+ * digits) to fit into a key, so priorities that only differ beyond that are
+ * treated as equal and returned in the order in which they were added.
+ * NaN priorities are returned after all other priorities.
+ * NOTE 3: The iterator returns the elements in no particular order, and does
+ * not support removing elements.
+ */
+public class PackedKeyPriorityQueue<E> extends AbstractQueue<E> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Sequence numbers have to fit into the low 32 bits of a key. Once they
+    // run out, the queued elements are numbered again from 0 (see
+    // resequence()).
+    static final long SEQUENCE_LIMIT = 1L << 32;
+
+    // Elements and their keys are stored at the same index, just like the
+    // elements and priorities of the HeapPriorityQueue.
+    private Object[] heapArray = new Object[DEFAULT_CAPACITY];
+    private long[] keys = new long[DEFAULT_CAPACITY];
+    private int heapLength = 0;
+
+    // True if higher priorities come first (a max queue), which is decided
+    // by asking the comparison strategy.
+    private boolean highPrioritiesFirst;
+
+    private PriorityStrategy<E> priorityStrategy;
+
+    // Sequence number of the next element that is added. This is
+    // package-private so that tests can move it close to SEQUENCE_LIMIT.
+    long nextSequence = 0;
+
+    // Counts the changes made to the heap, so that iterators can detect that
+    // the queue was modified while they were iterating over it.
+    private int modCount = 0;
+
+
+    PackedKeyPriorityQueue(ComparisonStrategy comparisonStrategy,
+                           PriorityStrategy<E> priorityStrategy) {
+        this.priorityStrategy = priorityStrategy;
+        this.highPrioritiesFirst = comparisonStrategy.compare(1, 0)
+                && !comparisonStrategy.compare(0, 1);
+    }
+
+
+    @Override
+    public boolean add(E element) {
+        return offer(element);
+    }
+
+    /**
+     * Adds an element to the queue based on its priority, after all queued
+     * elements with the same priority. Since this queue is unbounded, this
+     * always succeeds.
+     */
+    @Override
+    public boolean offer(E element) {
+        if(nextSequence == SEQUENCE_LIMIT) {
+            resequence();
+        }
+
+        modCount++;
+        if(heapLength == heapArray.length) {
+            int newCapacity = heapLength < 64
+                    ? (heapLength * 2) + 2
+                    : heapLength + (heapLength >> 1);
+            heapArray = Arrays.copyOf(heapArray, newCapacity);
+            keys = Arrays.copyOf(keys, newCapacity);
+        }
+
+        long key = ((long) priorityBits(priorityStrategy.getPriority(element))
+                << 32) | nextSequence++;
+        percolateUp(heapLength++, element, key);
+        return true;
+    }
+
+    /**
+     * Returns the element with the top priority without removing it, or null
+     * if the queue is empty. Of several elements with the top priority, the
+     * one that was added first is returned.
+     */
+    @Override
+    public E peek() {
+        return heapLength > 0 ? elementAt(0) : null;
+    }
+
+    /**
+     * Removes and returns the element with the top priority, or null if the
+     * queue is empty. Of several elements with the top priority, the one that
+     * was added first is removed.
+     */
+    @Override
+    public E poll() {
+        if(heapLength <= 0) {
+            // There are no elements to remove!
+            return null;
+        }
+
+        modCount++;
+        E topElement = elementAt(0);
+        heapLength--;
+        E lastElement = elementAt(heapLength);
+        long lastKey = keys[heapLength];
+        heapArray[heapLength] = null;
+        if(heapLength > 0) {
+            percolateDown(0, lastElement, lastKey);
+        }
+        return topElement;
+    }
+
+    @Override
+    public int size() {
+        return heapLength;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        Arrays.fill(heapArray, 0, heapLength, null);
+        heapLength = 0;
+    }
+
+    /**
+     * Returns an iterator over the elements in the order of the heap array,
+     * which is not the priority order.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int index = 0;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return index < heapLength;
+            }
+
+            @Override
+            public E next() {
+                if(modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if(index >= heapLength) {
+                    throw new NoSuchElementException();
+                }
+                return elementAt(index++);
+            }
+        };
+    }
+
+
+    /*
+     * Turns a priority into an int that sorts in priority order, with the
+     * top priority first. The bits of a non-negative float already sort like
+     * the float itself, while for negative floats the order is reversed, so
+     * all bits except the sign are flipped for those. For a max queue all
+     * bits are then flipped, which reverses the order.
+     */
+    private int priorityBits(double priority) {
+        if(Double.isNaN(priority)) {
+            return Integer.MAX_VALUE;
+        }
+
+        // Adding 0.0f turns -0.0 into 0.0, since they are equal priorities:
+        int bits = Float.floatToIntBits((float) priority + 0.0f);
+        bits ^= (bits >> 31) & Integer.MAX_VALUE;
+        // Only a NaN could end up as Integer.MAX_VALUE here, so that value
+        // is left for the NaN priorities above:
+        return highPrioritiesFirst ? ~bits : bits;
+    }
+
+    /*
+     * Numbers the queued elements again from 0, in the order of their
+     * current sequence numbers. This keeps the relative order of all keys,
+     * so the heap stays valid, and frees up the sequence numbers above the
+     * size of the queue. It takes O(n log n) time, but only happens once per
+     * 2^32 added elements.
+     */
+    private void resequence() {
+        // The sequence number (32 bits) and the index (31 bits) of every
+        // element, packed so that sorting them sorts by sequence number:
+        long[] sequenceIndices = new long[heapLength];
+        for(int index = 0; index < heapLength; index++) {
+            sequenceIndices[index] = ((keys[index] & 0xFFFFFFFFL) << 31)
+                    | index;
+        }
+        Arrays.sort(sequenceIndices);
+
+        for(int rank = 0; rank < heapLength; rank++) {
+            int index = (int) (sequenceIndices[rank] & Integer.MAX_VALUE);
+            keys[index] = (keys[index] & 0xFFFFFFFF00000000L) | rank;
+        }
+        nextSequence = heapLength;
+    }
+
+    /*
+     * Moves the hole at currentIndex upwards until the parent of the hole
+     * has a smaller key, and places the element into it, just like
+     * HeapPriorityQueue.percolateUp().
+     */
+    private void percolateUp(int currentIndex, E element, long key) {
+        while(currentIndex > 0) {
+            int parentIndex = (currentIndex - 1) >>> 1;
+            if(keys[parentIndex] < key) {
+                break;
+            }
+            heapArray[currentIndex] = heapArray[parentIndex];
+            keys[currentIndex] = keys[parentIndex];
+            currentIndex = parentIndex;
+        }
+        heapArray[currentIndex] = element;
+        keys[currentIndex] = key;
+    }
+
+    /*
+     * Moves the hole at currentIndex downwards until both of its children
+     * have larger keys, and places the element into it, just like
+     * HeapPriorityQueue.percolateDown().
+     */
+    private void percolateDown(int currentIndex, E element, long key) {
+        int firstLeafIndex = heapLength >>> 1;
+        while(currentIndex < firstLeafIndex) {
+            int childIndex = (2 * currentIndex) + 1;
+            int rightChildIndex = childIndex + 1;
+            if(rightChildIndex < heapLength &&
+                    keys[rightChildIndex] < keys[childIndex]) {
+                childIndex = rightChildIndex;
+            }
+            if(key < keys[childIndex]) {
+                break;
+            }
+            heapArray[currentIndex] = heapArray[childIndex];
+            keys[currentIndex] = keys[childIndex];
+            currentIndex = childIndex;
+        }
+        heapArray[currentIndex] = element;
+        keys[currentIndex] = key;
+    }
+
+    // Elements are only ever written into heapArray as E, so this cast is
+    // always safe.
+    @SuppressWarnings("unchecked")
+    private E elementAt(int index) {
+        return (E) heapArray[index];
+    }
+}
@@ -0,0 +1,273 @@
+package datastructures.priorityqueue;
+
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/*
+ * PairingHeapPriorityQueue is a priority queue that is built as a pairing
+ * heap: a tree in which every node has a higher priority than all of its
+ * children, and a node can have any number of children.
+ * Adding an element, or melding a whole other queue into this one, only
+ * links one root below the other, which takes O(1) time. The work is put
+ * off until poll(), which merges the children of the removed root in two
+ * passes (first in pairs from left to right, then the pairs from right to
+ * left). This takes O(log n) amortized time.
+ * This makes the queue a good fit for merging many queues, such as the
+ * waitlists of several departments, into one.
+ *
+ * Every node only points to its first child and to its next sibling, so the
+ * children of a node form a linked list.
+ *
+ * NOTE 1: This data structure does not prevent adding the same
+ * object twice.
+ * NOTE 2: This implementation makes NO GUARANTEE on the ordering
+ * of elements with the same priority value.
+ * NOTE 3: The iterator returns the elements in no particular order, and does
+ * not support removing elements.
+ */
+public class PairingHeapPriorityQueue<E> extends AbstractQueue<E> {
+
+    private Node<E> root;
+    private int size = 0;
+
+    // Used in the same way as in the HeapPriorityQueue, i.e. the parent
+    // priority is always passed first.
+    private ComparisonStrategy comparisonStrategy;
+    private PriorityStrategy<E> priorityStrategy;
+
+    // Counts the changes made to the heap, so that iterators can detect that
+    // the queue was modified while they were iterating over it.
+    private int modCount = 0;
+
+
+    PairingHeapPriorityQueue(ComparisonStrategy comparisonStrategy,
+                             PriorityStrategy<E> priorityStrategy) {
+        this.comparisonStrategy = comparisonStrategy;
+        this.priorityStrategy = priorityStrategy;
+    }
+
+
+    @Override
+    public boolean add(E element) {
+        return offer(element);
+    }
+
+    /**
+     * Adds an element to the queue in O(1) time. Since this queue is
+     * unbounded, this always succeeds.
+     */
+    @Override
+    public boolean offer(E element) {
+        modCount++;
+        root = link(root, new Node<>(element,
+                priorityStrategy.getPriority(element)));
+        size++;
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        return root != null ? root.element : null;
+    }
+
+    /**
+     * Removes and returns the element with the top priority in O(log n)
+     * amortized time, or null if the queue is empty.
+     */
+    @Override
+    public E poll() {
+        if(root == null) {
+            // There are no elements to remove!
+            return null;
+        }
+
+        modCount++;
+        E topElement = root.element;
+        root = mergePairs(root.child);
+        size--;
+        return topElement;
+    }
+
+    /**
+     * Moves all elements of the other queue into this one, and leaves the
+     * other queue empty.
+     * If both queues use the same (or equal) strategies, the root of the
+     * other queue is simply linked below this root (or the other way around),
+     * which takes O(1) time. Otherwise every element of the other queue has
+     * to be added again with the strategies of this queue, which takes O(m)
+     * time.
+     * @param otherQueue The queue whose elements are moved into this one
+     */
+    public void meld(PairingHeapPriorityQueue<E> otherQueue) {
+        if(otherQueue == this) {
+            throw new IllegalArgumentException(
+                    "A queue cannot be melded with itself!");
+        }
+        if(otherQueue.root == null) return;
+
+        modCount++;
+        if(hasSameStrategies(otherQueue)) {
+            root = link(root, otherQueue.root);
+            size += otherQueue.size;
+        } else {
+            for(E element : otherQueue) {
+                root = link(root, new Node<>(element,
+                        priorityStrategy.getPriority(element)));
+                size++;
+            }
+        }
+        otherQueue.clear();
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new PairingHeapIterator();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /*
+     * The trees of both queues can only be linked if both queues order their
+     * elements in exactly the same way. Strategies of the same class are not
+     * enough for this: every reversed() or adapted ComparisonStrategy is an
+     * instance of the same lambda class, whatever order it defines, and two
+     * instances of a parameterized PriorityStrategy can calculate different
+     * priorities. So the strategies have to be the same objects, or equal to
+     * each other. The stateless strategies (like MaxComparisonStrategy and
+     * BasicStudentPriorityStrategy) are equal to every instance of their
+     * class, so queues that were each created with new strategy objects are
+     * still linked, while lambdas are only equal to themselves.
+     */
+    private boolean hasSameStrategies(PairingHeapPriorityQueue<E> otherQueue) {
+        return Objects.equals(comparisonStrategy,
+                otherQueue.comparisonStrategy)
+                && Objects.equals(priorityStrategy,
+                otherQueue.priorityStrategy);
+    }
+
+    /*
+     * Links two trees (either of which may be empty) by making the root with
+     * the lower priority the first child of the other root.
+     */
+    private Node<E> link(Node<E> first, Node<E> second) {
+        if(first == null) return second;
+        if(second == null) return first;
+
+        if(!comparisonStrategy.compare(first.priority, second.priority)) {
+            Node<E> swap = first;
+            first = second;
+            second = swap;
+        }
+        second.sibling = first.child;
+        first.child = second;
+        return first;
+    }
+
+    /*
+     * Merges a list of sibling trees into one tree, using the two passes of
+     * the pairing heap. Both passes are done with loops instead of recursion,
+     * since the list can be as long as the whole heap.
+     */
+    private Node<E> mergePairs(Node<E> firstSibling) {
+        // First pass: link the trees in pairs from left to right. The linked
+        // pairs are pushed onto a stack (through their sibling pointers), so
+        // that the second pass sees them from right to left.
+        Node<E> pairs = null;
+        Node<E> current = firstSibling;
+        while(current != null) {
+            Node<E> second = current.sibling;
+            Node<E> next = second != null ? second.sibling : null;
+            current.sibling = null;
+            if(second != null) {
+                second.sibling = null;
+            }
+
+            Node<E> pair = link(current, second);
+            pair.sibling = pairs;
+            pairs = pair;
+            current = next;
+        }
+
+        // Second pass: link every pair into the result, from right to left.
+        Node<E> result = null;
+        while(pairs != null) {
+            Node<E> next = pairs.sibling;
+            pairs.sibling = null;
+            result = link(result, pairs);
+            pairs = next;
+        }
+        return result;
+    }
+
+
+    // A node of the pairing heap, along with its cached priority.
+    private static final class Node<E> {
+        private final E element;
+        private final double priority;
+        private Node<E> child;
+        private Node<E> sibling;
+
+        Node(E element, double priority) {
+            this.element = element;
+            this.priority = priority;
+        }
+    }
+
+    /*
+     * Walks over the tree depth first, keeping the nodes that still have to
+     * be visited on a stack.
+     */
+    private class PairingHeapIterator implements Iterator<E> {
+        private Deque<Node<E>> pendingNodes = new ArrayDeque<>();
+        private int expectedModCount = modCount;
+
+        PairingHeapIterator() {
+            if(root != null) {
+                pendingNodes.push(root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pendingNodes.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if(pendingNodes.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+
+            Node<E> node = pendingNodes.pop();
+            if(node.sibling != null) {
+                pendingNodes.push(node.sibling);
+            }
+            if(node.child != null) {
+                pendingNodes.push(node.child);
+            }
+            return node.element;
+        }
+    }
+}
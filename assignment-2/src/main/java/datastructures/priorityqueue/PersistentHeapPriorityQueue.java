@@ -0,0 +1,249 @@
+package datastructures.priorityqueue;
+
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * PersistentHeapPriorityQueue is a priority queue whose heap is never
+ * changed once it has been built. It is a leftist heap: a binary tree in
+ * which every node has a higher priority than its children, and in which
+ * the path down the right children is never longer than the one down the
+ * left children. Two heaps are merged by only walking down their right
+ * paths, which have O(log n) nodes.
+ * Adding an element merges a heap of one node into the heap, and polling
+ * merges the two children of the root. Both operations create new copies of
+ * the O(log n) nodes on the merged paths, and share all other nodes with the
+ * previous heap, which stays exactly as it was.
+ *
+ * Because of this, every version of the queue stays valid, and getting one
+ * (see snapshot()) takes O(1) time. A version can be iterated while other
+ * threads keep changing the queue, and the queue can be set back to a
+ * version in O(1) time (see restore(Version)), which makes undo a simple
+ * pointer swap.
+ * The root is swapped with a compare-and-swap, so the queue is also thread
+ * safe without locks. An operation that loses the race to another thread
+ * simply merges again with the new root.
+ *
+ * NOTE 1: This data structure does not prevent adding the same
+ * object twice.
+ * NOTE 2: This implementation makes NO GUARANTEE on the ordering
+ * of elements with the same priority value.
+ * NOTE 3: Null elements are not allowed, since poll() and peek() use null to
+ * indicate that the queue is empty.
+ * NOTE 4: The iterator does not support removing elements.
+ */
+public class PersistentHeapPriorityQueue<E> extends AbstractQueue<E> {
+
+    private AtomicReference<Node<E>> root = new AtomicReference<>();
+
+    // Used in the same way as in the HeapPriorityQueue, i.e. the parent
+    // priority is always passed first.
+    private ComparisonStrategy comparisonStrategy;
+    private PriorityStrategy<E> priorityStrategy;
+
+
+    PersistentHeapPriorityQueue(ComparisonStrategy comparisonStrategy,
+                                PriorityStrategy<E> priorityStrategy) {
+        this.comparisonStrategy = comparisonStrategy;
+        this.priorityStrategy = priorityStrategy;
+    }
+
+
+    @Override
+    public boolean add(E element) {
+        return offer(element);
+    }
+
+    /**
+     * Adds an element to the queue in O(log n) time. Since this queue is
+     * unbounded, this always succeeds.
+     */
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+
+        Node<E> newNode = new Node<>(element,
+                priorityStrategy.getPriority(element), null, null);
+        Node<E> currentRoot;
+        do {
+            currentRoot = root.get();
+        } while(!root.compareAndSet(currentRoot, merge(currentRoot, newNode)));
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        Node<E> currentRoot = root.get();
+        return currentRoot != null ? currentRoot.element : null;
+    }
+
+    /**
+     * Removes and returns the element with the top priority in O(log n)
+     * time, or null if the queue is empty.
+     */
+    @Override
+    public E poll() {
+        Node<E> currentRoot;
+        do {
+            currentRoot = root.get();
+            if(currentRoot == null) {
+                // There are no elements to remove!
+                return null;
+            }
+        } while(!root.compareAndSet(currentRoot,
+                merge(currentRoot.left, currentRoot.right)));
+        return currentRoot.element;
+    }
+
+    /**
+     * Returns the current version of the queue in O(1) time. The version
+     * never changes, no matter what is done to the queue afterwards.
+     */
+    public Version<E> snapshot() {
+        return new Version<>(this, root.get());
+    }
+
+    /**
+     * Sets the queue back to a version that was returned by snapshot() of
+     * this queue, in O(1) time.
+     */
+    public void restore(Version<E> version) {
+        if(version.queue != this) {
+            throw new IllegalArgumentException(
+                    "Version does not belong to this queue!");
+        }
+        root.set(version.root);
+    }
+
+    /**
+     * Returns an iterator over the elements of the current version, in
+     * priority order. Changes to the queue do not affect the iterator.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return snapshot().iterator();
+    }
+
+    @Override
+    public int size() {
+        return sizeOf(root.get());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root.get() == null;
+    }
+
+    @Override
+    public void clear() {
+        root.set(null);
+    }
+
+
+    /*
+     * Merges two heaps into a new heap. The root with the top priority
+     * becomes the new root, its left subtree is kept as it is, and the rest
+     * is merged into its right subtree. The subtrees are then swapped if the
+     * right one has become the one with the longer right path.
+     */
+    private Node<E> merge(Node<E> first, Node<E> second) {
+        if(first == null) return second;
+        if(second == null) return first;
+
+        if(!comparisonStrategy.compare(first.priority, second.priority)) {
+            Node<E> swap = first;
+            first = second;
+            second = swap;
+        }
+
+        Node<E> mergedRight = merge(first.right, second);
+        if(rankOf(first.left) < rankOf(mergedRight)) {
+            return new Node<>(first.element, first.priority, mergedRight,
+                    first.left);
+        }
+        return new Node<>(first.element, first.priority, first.left,
+                mergedRight);
+    }
+
+    private static int rankOf(Node<?> node) {
+        return node != null ? node.rank : 0;
+    }
+
+    private static int sizeOf(Node<?> node) {
+        return node != null ? node.size : 0;
+    }
+
+
+    /**
+     * A version of a PersistentHeapPriorityQueue, which can be iterated
+     * and restored, and never changes.
+     * @param <E> Type of the elements in the queue
+     */
+    public static final class Version<E> implements Iterable<E> {
+        private final PersistentHeapPriorityQueue<E> queue;
+        private final Node<E> root;
+
+        private Version(PersistentHeapPriorityQueue<E> queue, Node<E> root) {
+            this.queue = queue;
+            this.root = root;
+        }
+
+        public int size() {
+            return sizeOf(root);
+        }
+
+        /**
+         * Returns an iterator over the elements of this version, in priority
+         * order. Every step merges the children of the current root, just
+         * like poll(), so it takes O(log n) time.
+         */
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private Node<E> current = root;
+
+                @Override
+                public boolean hasNext() {
+                    return current != null;
+                }
+
+                @Override
+                public E next() {
+                    if(current == null) {
+                        throw new NoSuchElementException();
+                    }
+                    E element = current.element;
+                    current = queue.merge(current.left, current.right);
+                    return element;
+                }
+            };
+        }
+    }
+
+    // A node of the leftist heap. The rank is the length of the path down
+    // the right children, and the size is the number of nodes in the
+    // subtree, so that size() takes O(1) time.
+    private static final class Node<E> {
+        private final E element;
+        private final double priority;
+        private final Node<E> left;
+        private final Node<E> right;
+        private final int rank;
+        private final int size;
+
+        Node(E element, double priority, Node<E> left, Node<E> right) {
+            this.element = element;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.rank = rankOf(right) + 1;
+            this.size = sizeOf(left) + sizeOf(right) + 1;
+        }
+    }
+}
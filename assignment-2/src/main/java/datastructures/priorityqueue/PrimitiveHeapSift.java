@@ -0,0 +1,81 @@
+package datastructures.priorityqueue;
+
+import strategy.comparison.ComparisonStrategy;
+
+/*
+ * PrimitiveHeapSift holds the percolation of the heaps that store primitive
+ * entries (like the row numbers of the RowIdPriorityQueue and the record
+ * offsets of the OffHeapPriorityQueue) next to an array of their cached
+ * priorities. It works just like HeapPriorityQueue.percolateUp() and
+ * percolateDown(), but only knows the priorities: every time an entry moves
+ * into the hole, the queue is told to move its entry too, and once the hole
+ * has found its place its index is returned, so that the queue can put the
+ * new entry there.
+ *
+ * NOTE 1: The priority of the new entry is already stored at the returned
+ * index, so the queue only has to store the entry itself.
+ */
+final class PrimitiveHeapSift {
+
+    /*
+     * Moves the entry of a queue from one index of its heap array to another.
+     * The priorities are moved by PrimitiveHeapSift itself.
+     */
+    interface EntryMover {
+        void move(int fromIndex, int toIndex);
+    }
+
+
+    private PrimitiveHeapSift() {
+    }
+
+
+    /*
+     * Moves the hole at currentIndex upwards until the parent of the hole
+     * comes first, stores the priority in it and returns its index.
+     */
+    static int percolateUp(double[] priorities,
+                           ComparisonStrategy comparisonStrategy,
+                           EntryMover mover, int currentIndex,
+                           double priority) {
+        while(currentIndex > 0) {
+            int parentIndex = (currentIndex - 1) >>> 1;
+            if(comparisonStrategy.compare(priorities[parentIndex], priority)) {
+                break;
+            }
+            mover.move(parentIndex, currentIndex);
+            priorities[currentIndex] = priorities[parentIndex];
+            currentIndex = parentIndex;
+        }
+        priorities[currentIndex] = priority;
+        return currentIndex;
+    }
+
+    /*
+     * Moves the hole at currentIndex downwards until it comes before both of
+     * its children, stores the priority in it and returns its index.
+     */
+    static int percolateDown(double[] priorities, int heapLength,
+                             ComparisonStrategy comparisonStrategy,
+                             EntryMover mover, int currentIndex,
+                             double priority) {
+        int firstLeafIndex = heapLength >>> 1;
+        while(currentIndex < firstLeafIndex) {
+            int childIndex = (2 * currentIndex) + 1;
+            int rightChildIndex = childIndex + 1;
+            if(rightChildIndex < heapLength &&
+                    !comparisonStrategy.compare(priorities[childIndex],
+                            priorities[rightChildIndex])) {
+                childIndex = rightChildIndex;
+            }
+            if(comparisonStrategy.compare(priority, priorities[childIndex])) {
+                break;
+            }
+            mover.move(childIndex, currentIndex);
+            priorities[currentIndex] = priorities[childIndex];
+            currentIndex = childIndex;
+        }
+        priorities[currentIndex] = priority;
+        return currentIndex;
+    }
+}
@@ -0,0 +1,53 @@
+package datastructures.priorityqueue;
+
+import models.ChangeTrackable;
+
+/**
+ * A handle to an element that was added to a HeapPriorityQueue<E>.
+ * The queue keeps the position of the handle up to date whenever it moves the
+ * element around in its heap, so the element can be found again in constant
+ * time, no matter how many elements were added or removed in the meantime.
+ * Unlike an index, a handle always refers to the exact entry it was created
+ * for, even if the queue holds other elements that are equal to it.
+ * @param <E> Type of the element that is referred to by this handle
+ */
+public class QueueHandle<E> {
+
+    // Index of the element in the heap array of its queue, or -1 once the
+    // element has been removed from the queue. This is only ever updated by
+    // the queue, hence the package-private access.
+    int index;
+
+    // The queue that the element was added to. Handles can only be used with
+    // the queue that created them.
+    HeapPriorityQueue<E> queue;
+
+    private final E element;
+
+    // Listener registered with the element while its queue tracks changes
+    // (see HeapPriorityQueue.enableChangeTracking()), or null.
+    ChangeTrackable.ChangeListener changeListener;
+
+    // Set once the element has changed, until its queue repositions it.
+    boolean dirty;
+
+
+    QueueHandle(HeapPriorityQueue<E> queue, E element) {
+        this.queue = queue;
+        this.element = element;
+        this.index = -1;
+    }
+
+
+    public E getElement() {
+        return element;
+    }
+
+    /**
+     * Returns true if the element referred to by this handle is still in the
+     * queue, otherwise returns false.
+     */
+    public boolean isQueued() {
+        return index >= 0;
+    }
+}
@@ -0,0 +1,34 @@
+package datastructures.priorityqueue;
+
+/**
+ * A copy of the contents of a HeapPriorityQueue<E> at one point in time,
+ * which the queue can later be restored to.
+ * The heap array and the cached priorities are copied as they are, so
+ * taking a snapshot and restoring it both take O(n) time, and restoring does
+ * not have to calculate any priorities or rebuild the heap.
+ * @param <E> Type of the elements in the queue
+ */
+public class QueueSnapshot<E> {
+
+    // The queue that the snapshot was taken of. A snapshot can only be
+    // restored into that queue, since the copied heap layout depends on its
+    // arity and comparison strategy.
+    final HeapPriorityQueue<E> queue;
+
+    // Copies of the used part of the heap array and of the priorities.
+    final Object[] elements;
+    final double[] priorities;
+
+
+    QueueSnapshot(HeapPriorityQueue<E> queue, Object[] elements,
+                  double[] priorities) {
+        this.queue = queue;
+        this.elements = elements;
+        this.priorities = priorities;
+    }
+
+
+    public int size() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,155 @@
+package datastructures.priorityqueue;
+
+import models.Student;
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.AbstractQueue;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+ * RedIdIndexedStudentQueue is a priority queue of students that can also
+ * look up, remove and reprioritize a queued student by its Red ID in
+ * constant time.
+ * The students are kept in a HeapPriorityQueue, and a hash map from every
+ * Red ID to the QueueHandle of its student is kept next to it. The handle
+ * knows where its student is in the heap, so no search of the heap is needed.
+ *
+ * NOTE 1: Red IDs are unique, so two students with the same Red ID cannot be
+ * queued at the same time.
+ * NOTE 2: The Red ID of a student must not be changed while it is queued,
+ * since the student is indexed by the Red ID it had when it was added.
+ * NOTE 3: The iterator does not support removing elements.
+ */
+public class RedIdIndexedStudentQueue extends AbstractQueue<Student> {
+
+    private HeapPriorityQueue<Student> heap;
+
+    private Map<String, QueueHandle<Student>> handlesByRedId = new HashMap<>();
+
+
+    RedIdIndexedStudentQueue(ComparisonStrategy comparisonStrategy,
+                             PriorityStrategy<Student> priorityStrategy) {
+        this.heap = new HeapPriorityQueue<>(comparisonStrategy,
+                priorityStrategy);
+    }
+
+
+    /**
+     * Adds a student to the queue and indexes it by its Red ID.
+     * Throws an IllegalArgumentException if a student with the same Red ID
+     * is already queued.
+     */
+    @Override
+    public boolean offer(Student student) {
+        Objects.requireNonNull(student);
+        String redId = student.getRedId();
+        if(handlesByRedId.containsKey(redId)) {
+            throw new IllegalArgumentException("A student with Red ID "
+                    + redId + " is already queued!");
+        }
+
+        handlesByRedId.put(redId, heap.addWithHandle(student));
+        return true;
+    }
+
+    @Override
+    public Student peek() {
+        return heap.peek();
+    }
+
+    @Override
+    public Student poll() {
+        QueueHandle<Student> handle = heap.pollHandle();
+        if(handle == null) return null;
+
+        handlesByRedId.remove(handle.getElement().getRedId());
+        return handle.getElement();
+    }
+
+    /**
+     * Returns the queued student with the given Red ID, or null if there is
+     * no such student in the queue.
+     */
+    public Student getByRedId(String redId) {
+        QueueHandle<Student> handle = handlesByRedId.get(redId);
+        return handle != null ? handle.getElement() : null;
+    }
+
+    public boolean containsRedId(String redId) {
+        return handlesByRedId.containsKey(redId);
+    }
+
+    /**
+     * Removes the student with the given Red ID from the queue in O(log n)
+     * time.
+     * @return The removed student, or null if there was no such student in
+     * the queue
+     */
+    public Student removeByRedId(String redId) {
+        QueueHandle<Student> handle = handlesByRedId.remove(redId);
+        if(handle == null) return null;
+
+        heap.removeByHandle(handle);
+        return handle.getElement();
+    }
+
+    /**
+     * Moves the student with the given Red ID to its new position after its
+     * priority has changed, in O(log n) time.
+     * @return True if the student was repositioned, false if there was no
+     * such student in the queue
+     */
+    public boolean updatePriority(String redId) {
+        QueueHandle<Student> handle = handlesByRedId.get(redId);
+        return handle != null && heap.updatePriority(handle);
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if(!(object instanceof Student)) return false;
+
+        Student queuedStudent = getByRedId(((Student) object).getRedId());
+        return queuedStudent != null && queuedStudent.equals(object);
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        if(!contains(object)) return false;
+
+        removeByRedId(((Student) object).getRedId());
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+        handlesByRedId.clear();
+    }
+
+    @Override
+    public Iterator<Student> iterator() {
+        Iterator<Student> heapIterator = heap.iterator();
+        // Wrapped so that removing through the iterator cannot bypass the
+        // index.
+        return new Iterator<Student>() {
+            @Override
+            public boolean hasNext() {
+                return heapIterator.hasNext();
+            }
+
+            @Override
+            public Student next() {
+                return heapIterator.next();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return heap.size();
+    }
+}
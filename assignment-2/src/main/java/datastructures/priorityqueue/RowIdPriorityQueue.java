@@ -0,0 +1,139 @@
+package datastructures.priorityqueue;
+
+import models.StudentTable;
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.ColumnPriorityStrategy;
+
+import java.util.Arrays;
+
+/*
+ * RowIdPriorityQueue is a heap based priority queue of the rows of a
+ * StudentTable. It works like the HeapPriorityQueue, except that it holds
+ * primitive int row numbers instead of element objects, and calculates the
+ * priority of each row from the columns of the table with a
+ * ColumnPriorityStrategy.
+ * The heap itself is then just an int array and a double array of the
+ * cached priorities, so comparing two rows never has to follow a reference.
+ *
+ * NOTE 1: This data structure does not prevent adding the same
+ * row twice.
+ * NOTE 2: This implementation makes NO GUARANTEE on the ordering
+ * of rows with the same priority value.
+ * NOTE 3: If a row of the table is changed while it is queued, the queue is
+ * not updated.
+ */
+public class RowIdPriorityQueue {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Returned by peek() and poll() if the queue is empty.
+    public static final int NO_ROW = -1;
+
+    private int[] heapArray = new int[DEFAULT_CAPACITY];
+    private double[] priorities = new double[DEFAULT_CAPACITY];
+    private int heapLength = 0;
+
+    // Moves the row numbers for PrimitiveHeapSift. It is created once,
+    // instead of for every percolation.
+    private final PrimitiveHeapSift.EntryMover entryMover =
+            (fromIndex, toIndex) -> heapArray[toIndex] = heapArray[fromIndex];
+
+    private StudentTable table;
+    private ComparisonStrategy comparisonStrategy;
+    private ColumnPriorityStrategy priorityStrategy;
+
+
+    RowIdPriorityQueue(StudentTable table,
+                       ComparisonStrategy comparisonStrategy,
+                       ColumnPriorityStrategy priorityStrategy) {
+        this.table = table;
+        this.comparisonStrategy = comparisonStrategy;
+        this.priorityStrategy = priorityStrategy;
+    }
+
+
+    /**
+     * Adds a row of the table to the queue, based on its priority.
+     */
+    public void add(int row) {
+        double priority = priorityStrategy.getPriority(table, row);
+        ensureCapacity(heapLength + 1);
+        percolateUp(heapLength, row, priority);
+        heapLength++;
+    }
+
+    /**
+     * Adds every row of the table to the queue. The rows are put into the
+     * array first and the heap is then built from the bottom up, which takes
+     * O(n) time.
+     */
+    public void addAllRows() {
+        int rowCount = table.size();
+        ensureCapacity(heapLength + rowCount);
+        for(int row = 0; row < rowCount; row++) {
+            heapArray[heapLength] = row;
+            priorities[heapLength] = priorityStrategy.getPriority(table, row);
+            heapLength++;
+        }
+
+        for(int index = (heapLength >>> 1) - 1; index >= 0; index--) {
+            percolateDown(index, heapArray[index], priorities[index]);
+        }
+    }
+
+    /**
+     * Returns the row with the top priority, or NO_ROW if the queue is empty.
+     */
+    public int peek() {
+        return heapLength > 0 ? heapArray[0] : NO_ROW;
+    }
+
+    /**
+     * Removes and returns the row with the top priority, or NO_ROW if the
+     * queue is empty.
+     */
+    public int poll() {
+        if(heapLength <= 0) {
+            // There are no rows to remove!
+            return NO_ROW;
+        }
+
+        int topRow = heapArray[0];
+        heapLength--;
+        if(heapLength > 0) {
+            percolateDown(0, heapArray[heapLength], priorities[heapLength]);
+        }
+        return topRow;
+    }
+
+    public int size() {
+        return heapLength;
+    }
+
+    public boolean isEmpty() {
+        return heapLength == 0;
+    }
+
+
+    // Percolates the row upwards from the hole at currentIndex, see
+    // PrimitiveHeapSift.percolateUp().
+    private void percolateUp(int currentIndex, int row, double priority) {
+        heapArray[PrimitiveHeapSift.percolateUp(priorities, comparisonStrategy,
+                entryMover, currentIndex, priority)] = row;
+    }
+
+    // Percolates the row downwards from the hole at currentIndex, see
+    // PrimitiveHeapSift.percolateDown().
+    private void percolateDown(int currentIndex, int row, double priority) {
+        heapArray[PrimitiveHeapSift.percolateDown(priorities, heapLength,
+                comparisonStrategy, entryMover, currentIndex, priority)] = row;
+    }
+
+    private void ensureCapacity(int requiredCapacity) {
+        if(requiredCapacity <= heapArray.length) return;
+
+        int newCapacity = Math.max(requiredCapacity, heapArray.length * 2);
+        heapArray = Arrays.copyOf(heapArray, newCapacity);
+        priorities = Arrays.copyOf(priorities, newCapacity);
+    }
+}
@@ -0,0 +1,141 @@
+package datastructures.priorityqueue;
+
+import strategy.comparison.ComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/*
+ * TopKCollector collects the k elements with the top priority out of a
+ * stream, without holding on to the rest of the stream.
+ * The k best elements seen so far are kept in a HeapPriorityQueue that is
+ * ordered the opposite way (see ComparisonStrategy.reversed()), so that its
+ * root is the worst of them. A new element only has to be compared with
+ * that root: if it is not better, it is dropped right away, otherwise it
+ * replaces the root with a single percolation. Collecting n elements then
+ * takes O(n log k) time, and only O(k) memory.
+ *
+ * The collector can be used with parallel streams. Every thread fills its
+ * own partial heap, and the partial heaps are merged by offering the
+ * elements of the smaller one to the larger one.
+ * The result is a list of the (up to) k top elements, in priority order.
+ *
+ * NOTE: This implementation makes NO GUARANTEE on which elements are kept
+ * if several elements share the priority of the k-th element.
+ */
+public class TopKCollector<E>
+        implements Collector<E, TopKCollector.PartialResult<E>, List<E>> {
+
+    private int k;
+    private ComparisonStrategy comparisonStrategy;
+    private PriorityStrategy<E> priorityStrategy;
+
+
+    private TopKCollector(int k, ComparisonStrategy comparisonStrategy,
+                          PriorityStrategy<E> priorityStrategy) {
+        if(k < 0) {
+            throw new IllegalArgumentException("k cannot be negative!");
+        }
+        this.k = k;
+        this.comparisonStrategy = comparisonStrategy;
+        this.priorityStrategy = priorityStrategy;
+    }
+
+
+    /**
+     * Returns a collector of the k elements with the top priority, where
+     * the comparison strategy decides what the top is (just like in a
+     * HeapPriorityQueue).
+     */
+    public static <E> TopKCollector<E> topK(
+            int k, ComparisonStrategy comparisonStrategy,
+            PriorityStrategy<E> priorityStrategy) {
+        return new TopKCollector<>(k, comparisonStrategy, priorityStrategy);
+    }
+
+    @Override
+    public Supplier<PartialResult<E>> supplier() {
+        return () -> new PartialResult<>(this);
+    }
+
+    @Override
+    public BiConsumer<PartialResult<E>, E> accumulator() {
+        return (partialResult, element) -> partialResult.offer(element,
+                priorityStrategy.getPriority(element));
+    }
+
+    @Override
+    public BinaryOperator<PartialResult<E>> combiner() {
+        return (first, second) -> {
+            PartialResult<E> larger = first;
+            PartialResult<E> smaller = second;
+            if(smaller.heap.size() > larger.heap.size()) {
+                larger = second;
+                smaller = first;
+            }
+            smaller.heap.forEachWithPriority(larger::offer);
+            return larger;
+        };
+    }
+
+    /*
+     * Polling the reversed heap returns the worst element first, so the
+     * list is filled from the end.
+     */
+    @Override
+    public Function<PartialResult<E>, List<E>> finisher() {
+        return partialResult -> {
+            HeapPriorityQueue<E> heap = partialResult.heap;
+            List<E> result = new ArrayList<>(
+                    Collections.nCopies(heap.size(), null));
+            for(int index = result.size() - 1; index >= 0; index--) {
+                result.set(index, heap.poll());
+            }
+            return result;
+        };
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Collections.unmodifiableSet(
+                EnumSet.of(Characteristics.UNORDERED));
+    }
+
+
+    /**
+     * The k best elements that one thread has collected so far.
+     * @param <E> Type of the collected elements
+     */
+    public static final class PartialResult<E> {
+        private final int k;
+        private final ComparisonStrategy comparisonStrategy;
+        private final HeapPriorityQueue<E> heap;
+
+        private PartialResult(TopKCollector<E> collector) {
+            this.k = collector.k;
+            this.comparisonStrategy = collector.comparisonStrategy;
+            this.heap = new HeapPriorityQueue<>(
+                    collector.comparisonStrategy.reversed(),
+                    collector.priorityStrategy);
+        }
+
+        private void offer(E element, double priority) {
+            if(heap.size() < k) {
+                heap.addWithPriority(element, priority);
+            } else if(k > 0 && !comparisonStrategy.compare(
+                    heap.peekPriority(), priority)) {
+                // The element is better than the worst of the k best ones.
+                heap.replaceTop(element, priority);
+            }
+        }
+    }
+}
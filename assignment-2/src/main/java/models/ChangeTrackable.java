@@ -0,0 +1,23 @@
+package models;
+
+/*
+ * Interface for objects that notify listeners whenever they change in a way
+ * that may affect their priority. A HeapPriorityQueue with change tracking
+ * enabled registers a listener for every trackable element it holds, so that
+ * it can reposition the element before its next peek() or poll(), instead of
+ * the whole queue having to be rebuilt after the change.
+ */
+public interface ChangeTrackable {
+
+    void addChangeListener(ChangeListener listener);
+
+    void removeChangeListener(ChangeListener listener);
+
+
+    /*
+     * Listener that is called after a trackable object has changed.
+     */
+    interface ChangeListener {
+        void changed();
+    }
+}
@@ -0,0 +1,188 @@
+package models;
+
+import exceptions.InvalidInputException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * OffHeapStudentStore stores students as fixed size records in direct
+ * ByteBuffers, i.e. in memory outside of the Java heap. The garbage collector
+ * never has to look at this memory, so even hundreds of millions of students
+ * do not make garbage collection any slower.
+ * Every student is identified by the offset (in bytes) of its record. The
+ * memory is allocated in segments, which are added as the store grows, so
+ * the store is not limited to the 2GB that a single ByteBuffer can address.
+ *
+ * Every record is RECORD_SIZE bytes long and has this layout:
+ *     0  GPA (double)
+ *     8  Units (int)
+ *    12  Name  (1 length byte + up to 47 bytes of UTF-8)
+ *    60  Red ID (1 length byte + up to 15 bytes of UTF-8)
+ *    76  Email (1 length byte + up to 51 bytes of UTF-8)
+ *
+ * NOTE: Records cannot be removed, they are only ever appended.
+ */
+public class OffHeapStudentStore {
+
+    // The record and segment sizes are powers of 2, so that a record never
+    // spans two segments and an offset can be split with shifts and masks.
+    public static final int RECORD_SIZE = 128;
+    private static final int SEGMENT_SHIFT = 24;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private static final int GPA_POSITION = 0;
+    private static final int UNITS_POSITION = 8;
+    private static final int NAME_POSITION = 12;
+    private static final int NAME_SIZE = 48;
+    private static final int RED_ID_POSITION = 60;
+    private static final int RED_ID_SIZE = 16;
+    private static final int EMAIL_POSITION = 76;
+    private static final int EMAIL_SIZE = 52;
+
+    private List<ByteBuffer> segments = new ArrayList<>();
+
+    // Offset at which the next record will be written.
+    private long nextOffset = 0;
+
+
+    /**
+     * Appends a student record to the store. The same rules as in Student
+     * apply to the GPA and units, and the text fields must fit in their
+     * fixed size fields.
+     * @return The offset of the new record
+     */
+    public long addStudent(String name, String redId, String email,
+                           double gpa, int units)
+            throws InvalidInputException {
+        Student.validateGpa(gpa);
+        Student.validateUnits(units);
+        byte[] nameBytes = encode("Name", name, NAME_SIZE);
+        byte[] redIdBytes = encode("Red ID", redId, RED_ID_SIZE);
+        byte[] emailBytes = encode("Email", email, EMAIL_SIZE);
+
+        long offset = nextOffset;
+        if((offset >>> SEGMENT_SHIFT) == segments.size()) {
+            segments.add(ByteBuffer.allocateDirect(SEGMENT_SIZE));
+        }
+
+        ByteBuffer segment = segmentOf(offset);
+        int position = positionOf(offset);
+        segment.putDouble(position + GPA_POSITION, gpa);
+        segment.putInt(position + UNITS_POSITION, units);
+        writeString(segment, position + NAME_POSITION, nameBytes);
+        writeString(segment, position + RED_ID_POSITION, redIdBytes);
+        writeString(segment, position + EMAIL_POSITION, emailBytes);
+
+        nextOffset += RECORD_SIZE;
+        return offset;
+    }
+
+    /**
+     * Appends a copy of the given student to the store.
+     * @return The offset of the new record
+     */
+    public long addStudent(Student student) throws InvalidInputException {
+        return addStudent(student.getName(), student.getRedId(),
+                student.getEmail(), student.getGpa(), student.getUnits());
+    }
+
+    public long size() {
+        return nextOffset / RECORD_SIZE;
+    }
+
+    public double getGpa(long offset) {
+        return segmentOf(checkOffset(offset))
+                .getDouble(positionOf(offset) + GPA_POSITION);
+    }
+
+    public void setGpa(long offset, double gpa) throws InvalidInputException {
+        Student.validateGpa(gpa);
+        segmentOf(checkOffset(offset))
+                .putDouble(positionOf(offset) + GPA_POSITION, gpa);
+    }
+
+    public int getUnits(long offset) {
+        return segmentOf(checkOffset(offset))
+                .getInt(positionOf(offset) + UNITS_POSITION);
+    }
+
+    public void setUnits(long offset, int units)
+            throws InvalidInputException {
+        Student.validateUnits(units);
+        segmentOf(checkOffset(offset))
+                .putInt(positionOf(offset) + UNITS_POSITION, units);
+    }
+
+    public String getName(long offset) {
+        return readString(checkOffset(offset), NAME_POSITION);
+    }
+
+    public String getRedId(long offset) {
+        return readString(checkOffset(offset), RED_ID_POSITION);
+    }
+
+    public String getEmail(long offset) {
+        return readString(checkOffset(offset), EMAIL_POSITION);
+    }
+
+    /**
+     * Creates a Student object with the values of the given record. Changes
+     * to the returned object are not written back to the store.
+     */
+    public Student toStudent(long offset) throws InvalidInputException {
+        return new Student(getName(offset), getRedId(offset),
+                getEmail(offset), getGpa(offset), getUnits(offset));
+    }
+
+
+    private long checkOffset(long offset) {
+        if(offset < 0 || offset >= nextOffset || offset % RECORD_SIZE != 0) {
+            throw new IndexOutOfBoundsException("Offset " + offset
+                    + " is not the start of a record!");
+        }
+        return offset;
+    }
+
+    private ByteBuffer segmentOf(long offset) {
+        return segments.get((int) (offset >>> SEGMENT_SHIFT));
+    }
+
+    private int positionOf(long offset) {
+        return (int) (offset & SEGMENT_MASK);
+    }
+
+    // A text field holds a length byte followed by the UTF-8 bytes of the
+    // text, so the text can take up one byte less than the field.
+    private static byte[] encode(String fieldName, String value,
+                                 int fieldSize)
+            throws InvalidInputException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length > fieldSize - 1) {
+            throw new InvalidInputException(fieldName + " cannot be longer"
+                    + " than " + (fieldSize - 1) + " bytes!");
+        }
+        return bytes;
+    }
+
+    private static void writeString(ByteBuffer segment, int position,
+                                    byte[] bytes) {
+        segment.put(position, (byte) bytes.length);
+        for(int i = 0; i < bytes.length; i++) {
+            segment.put(position + 1 + i, bytes[i]);
+        }
+    }
+
+    private String readString(long offset, int fieldPosition) {
+        ByteBuffer segment = segmentOf(offset);
+        int position = positionOf(offset) + fieldPosition;
+        byte[] bytes = new byte[segment.get(position) & 0xFF];
+        for(int i = 0; i < bytes.length; i++) {
+            bytes[i] = segment.get(position + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -2,11 +2,11 @@ package models;
 
 import exceptions.InvalidInputException;
 
-import java.nio.ByteBuffer;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 
-public class Student {
+public class Student implements ChangeTrackable {
 
     private String name;
     private String redId; // A unique identifier for the student
@@ -14,11 +14,23 @@ public class Student {
     private double gpa;
     private int units;
 
+    // Cached hash code of the student, or 0 if it has not been calculated
+    // since the student was created or last changed.
+    private int hashCode;
 
-    public final int MIN_UNITS = 0;
-    public final int MAX_UNITS = 150;
-    public final double MIN_GPA = 0.0;
-    public final double MAX_GPA = 4.0;
+    // Listeners that are notified when the GPA or units change, which are the
+    // fields that priorities are calculated from. The list is only created
+    // once the first listener is added, so untracked students do not pay
+    // for it.
+    private List<ChangeListener> changeListeners;
+
+
+    // These bounds are the same for every student, so they are static and
+    // are not stored in every Student object.
+    public static final int MIN_UNITS = 0;
+    public static final int MAX_UNITS = 150;
+    public static final double MIN_GPA = 0.0;
+    public static final double MAX_GPA = 4.0;
 
 
     public Student(String name, String redId, String email,
@@ -41,6 +53,7 @@ public class Student {
         // A regex check can be done here to restrict the characters of a name.
         // This has been skipped for simplicity.
         this.name = name;
+        hashCode = 0;
     }
 
     public String getRedId() {
@@ -51,6 +64,7 @@ public class Student {
         // A regex check can be done here to restrict the characters of a Red
         // ID. This has been skipped for simplicity.
         this.redId = redId;
+        hashCode = 0;
     }
 
     public String getEmail() {
@@ -61,6 +75,7 @@ public class Student {
         // A regex check can be done here to restrict the characters of an
         // email address. This has been skipped for simplicity.
         this.email = email;
+        hashCode = 0;
     }
 
     public double getGpa() {
@@ -68,11 +83,11 @@ public class Student {
     }
 
     public void setGpa(double gpa) throws InvalidInputException {
-        if(gpa < MIN_GPA || gpa > MAX_GPA) {
-            throw new InvalidInputException("GPA must be between " + MIN_GPA
-                    + " and " + MAX_GPA + "!");
-        }
+        validateGpa(gpa);
+        if(this.gpa == gpa) return;
         this.gpa = gpa;
+        hashCode = 0;
+        notifyChangeListeners();
     }
 
     public int getUnits() {
@@ -80,11 +95,56 @@ public class Student {
     }
 
     public void setUnits(int units) throws InvalidInputException {
+        validateUnits(units);
+        if(this.units == units) return;
+        this.units = units;
+        hashCode = 0;
+        notifyChangeListeners();
+    }
+
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        Objects.requireNonNull(listener);
+        if(changeListeners == null) {
+            changeListeners = new ArrayList<>(2);
+        }
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        if(changeListeners == null) return;
+        changeListeners.remove(listener);
+        if(changeListeners.isEmpty()) {
+            changeListeners = null;
+        }
+    }
+
+    private void notifyChangeListeners() {
+        List<ChangeListener> listeners = changeListeners;
+        if(listeners == null) return;
+        // Indexed loop, since a listener may add or remove listeners:
+        for(int index = 0; index < listeners.size(); index++) {
+            listeners.get(index).changed();
+        }
+    }
+
+
+    // The rules for GPA and units are shared with StudentTable, which stores
+    // the same fields in columns.
+    static void validateGpa(double gpa) throws InvalidInputException {
+        if(gpa < MIN_GPA || gpa > MAX_GPA) {
+            throw new InvalidInputException("GPA must be between " + MIN_GPA
+                    + " and " + MAX_GPA + "!");
+        }
+    }
+
+    static void validateUnits(int units) throws InvalidInputException {
         if(units < MIN_UNITS || units > MAX_UNITS) {
             throw new InvalidInputException("Units must be between "
                     + MIN_UNITS + "  and " + MAX_UNITS + "!");
         }
-        this.units = units;
     }
 
 
@@ -108,27 +168,24 @@ public class Student {
         }
     }
 
+    /*
+     * The hash code combines the hash codes of all fields that are compared
+     * in equals(Object). It is calculated on the first call and cached until
+     * one of the setters changes the student, in the same way that String
+     * caches its hash code.
+     */
     @Override
     public int hashCode() {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-
-            digest.update(getName().getBytes());
-            digest.update(getRedId().getBytes());
-            digest.update(getEmail().getBytes());
-            digest.update(ByteBuffer.allocate(4).putInt(getUnits()).array());
-            digest.update(ByteBuffer.wrap(new byte[8]).putDouble(getGpa()));
-
-            byte[] hashCodeBytes = digest.digest();
-            byte[] truncatedBytes = {hashCodeBytes[0], hashCodeBytes[1],
-                    hashCodeBytes[2], hashCodeBytes[3]};
-
-            return ByteBuffer.wrap(truncatedBytes).getInt();
-        } catch (NoSuchAlgorithmException e) {
-            // We don't expect this exception as we have hardcoded a valid
-            // algorithm name.
-            e.printStackTrace();
+        int hash = hashCode;
+        if(hash == 0) {
+            hash = Objects.hashCode(name);
+            hash = 31 * hash + Objects.hashCode(redId);
+            hash = 31 * hash + Objects.hashCode(email);
+            // Adding 0.0 turns -0.0 into 0.0, since they are equal GPAs:
+            hash = 31 * hash + Double.hashCode(gpa + 0.0);
+            hash = 31 * hash + units;
+            hashCode = hash;
         }
-        return 0;
+        return hash;
     }
 }
@@ -0,0 +1,160 @@
+package models;
+
+import exceptions.InvalidInputException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * StudentTable stores a large number of students in columns (one array per
+ * field) instead of as separate Student objects. Every student is identified
+ * by its row number.
+ * GPA and units are kept in primitive arrays, so reading them does not
+ * require following a reference to another object. The name, Red ID and
+ * email are dictionary encoded: every distinct string is stored only once,
+ * and the columns just hold an int code for it.
+ * This keeps millions of students in a handful of arrays, without an object
+ * header and several references for each of them, and lets priority
+ * strategies read the columns directly (see ColumnPriorityStrategy).
+ *
+ * NOTE: Rows cannot be removed, they are only ever appended.
+ */
+public class StudentTable {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private double[] gpaColumn = new double[DEFAULT_CAPACITY];
+    private int[] unitsColumn = new int[DEFAULT_CAPACITY];
+    private int[] nameColumn = new int[DEFAULT_CAPACITY];
+    private int[] redIdColumn = new int[DEFAULT_CAPACITY];
+    private int[] emailColumn = new int[DEFAULT_CAPACITY];
+
+    private StringDictionary nameDictionary = new StringDictionary();
+    private StringDictionary redIdDictionary = new StringDictionary();
+    private StringDictionary emailDictionary = new StringDictionary();
+
+    private int rowCount = 0;
+
+
+    /**
+     * Appends a student to the table. The same rules as in Student apply to
+     * the GPA and units.
+     * @return The row number of the new student
+     */
+    public int addStudent(String name, String redId, String email,
+                          double gpa, int units)
+            throws InvalidInputException {
+        Student.validateGpa(gpa);
+        Student.validateUnits(units);
+        ensureCapacity(rowCount + 1);
+
+        int row = rowCount;
+        nameColumn[row] = nameDictionary.encode(name);
+        redIdColumn[row] = redIdDictionary.encode(redId);
+        emailColumn[row] = emailDictionary.encode(email);
+        gpaColumn[row] = gpa;
+        unitsColumn[row] = units;
+        rowCount++;
+        return row;
+    }
+
+    /**
+     * Appends a copy of the given student to the table.
+     * @return The row number of the new student
+     */
+    public int addStudent(Student student) throws InvalidInputException {
+        return addStudent(student.getName(), student.getRedId(),
+                student.getEmail(), student.getGpa(), student.getUnits());
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    public String getName(int row) {
+        return nameDictionary.decode(nameColumn[checkRow(row)]);
+    }
+
+    public String getRedId(int row) {
+        return redIdDictionary.decode(redIdColumn[checkRow(row)]);
+    }
+
+    public String getEmail(int row) {
+        return emailDictionary.decode(emailColumn[checkRow(row)]);
+    }
+
+    public double getGpa(int row) {
+        return gpaColumn[checkRow(row)];
+    }
+
+    public void setGpa(int row, double gpa) throws InvalidInputException {
+        Student.validateGpa(gpa);
+        gpaColumn[checkRow(row)] = gpa;
+    }
+
+    public int getUnits(int row) {
+        return unitsColumn[checkRow(row)];
+    }
+
+    public void setUnits(int row, int units) throws InvalidInputException {
+        Student.validateUnits(units);
+        unitsColumn[checkRow(row)] = units;
+    }
+
+    /**
+     * Creates a Student object with the values of the given row. Changes to
+     * the returned object are not written back to the table.
+     */
+    public Student toStudent(int row) throws InvalidInputException {
+        return new Student(getName(row), getRedId(row), getEmail(row),
+                getGpa(row), getUnits(row));
+    }
+
+
+    // The columns are larger than rowCount, so we check the row ourselves.
+    private int checkRow(int row) {
+        if(row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row
+                    + " is not in a table of " + rowCount + " rows!");
+        }
+        return row;
+    }
+
+    // Grows all columns together, doubling them in size.
+    private void ensureCapacity(int requiredCapacity) {
+        if(requiredCapacity <= gpaColumn.length) return;
+
+        int newCapacity = Math.max(requiredCapacity, gpaColumn.length * 2);
+        gpaColumn = Arrays.copyOf(gpaColumn, newCapacity);
+        unitsColumn = Arrays.copyOf(unitsColumn, newCapacity);
+        nameColumn = Arrays.copyOf(nameColumn, newCapacity);
+        redIdColumn = Arrays.copyOf(redIdColumn, newCapacity);
+        emailColumn = Arrays.copyOf(emailColumn, newCapacity);
+    }
+
+    /*
+     * Maps every distinct string to an int code (in the order in which the
+     * strings are first seen) and back.
+     */
+    private static class StringDictionary {
+        private Map<String, Integer> codes = new HashMap<>();
+        private List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if(code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/*
+ * The base interface for classes that convert the elements of a queue to
+ * bytes and back, so that they can be written to a write-ahead log or a
+ * snapshot. An element that is written and then read back must be equal to
+ * the original element and must have the same priority.
+ */
+public interface ElementCodec<E> {
+    void write(E element, DataOutput output) throws IOException;
+    E read(DataInput input) throws IOException;
+}
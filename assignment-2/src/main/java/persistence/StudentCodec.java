@@ -0,0 +1,35 @@
+package persistence;
+
+import exceptions.InvalidInputException;
+import models.Student;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/*
+ * Writes every field of a student, in the order of the constructor.
+ */
+public class StudentCodec implements ElementCodec<Student> {
+
+    @Override
+    public void write(Student student, DataOutput output) throws IOException {
+        output.writeUTF(student.getName());
+        output.writeUTF(student.getRedId());
+        output.writeUTF(student.getEmail());
+        output.writeDouble(student.getGpa());
+        output.writeInt(student.getUnits());
+    }
+
+    @Override
+    public Student read(DataInput input) throws IOException {
+        try {
+            return new Student(input.readUTF(), input.readUTF(),
+                    input.readUTF(), input.readDouble(), input.readInt());
+        } catch (InvalidInputException e) {
+            // Only valid students can be written, so the bytes are corrupt.
+            throw new IOException("Invalid student record: "
+                    + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+ * WriteAheadLog is an append-only file of small binary records. Every record
+ * has a one byte type, chosen by the user of the log, and a payload of bytes.
+ *
+ * Records are numbered with a sequence number, which keeps counting up when
+ * the log is reset. The file starts with a header that holds the sequence
+ * number of its first record, so that the log can be matched up with a
+ * snapshot that was taken at a certain sequence number.
+ *
+ * Appended records are collected in memory and are written to the file and
+ * forced to the disk together once syncInterval records have been collected
+ * (group commit). A sync interval of 1 makes every record durable as soon
+ * as it is appended, while larger intervals need far fewer disk syncs but
+ * may lose the last few records if the process crashes.
+ *
+ * Every record is stored as:
+ *     payload length (int), type (byte), payload, CRC32 of type and payload
+ * A record that was only partly written when the process crashed fails the
+ * length or checksum check. It is then cut off, along with everything after
+ * it, when the log is opened again.
+ *
+ * NOTE: This class is not thread safe.
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final int MAGIC = 0x57414C31; // "WAL1"
+    private static final int HEADER_SIZE = 12;
+    // Length, type and checksum of a record:
+    private static final int RECORD_OVERHEAD = 9;
+
+    private FileChannel channel;
+    private int syncInterval;
+
+    private long baseSequence;
+    private long nextSequence;
+
+    // The records that were already in the file when it was opened.
+    private List<Record> recoveredRecords = new ArrayList<>();
+
+    private ByteArrayOutputStream pendingBytes = new ByteArrayOutputStream();
+    private DataOutputStream pendingOutput =
+            new DataOutputStream(pendingBytes);
+    private int pendingRecords = 0;
+
+
+    /**
+     * Opens the log file, or creates it if it does not exist. All intact
+     * records in the file are read and are available from
+     * getRecoveredRecords().
+     * @param syncInterval Number of appended records that are written and
+     * forced to the disk together
+     */
+    public WriteAheadLog(Path file, int syncInterval) throws IOException {
+        if(syncInterval < 1) {
+            throw new IllegalArgumentException(
+                    "The sync interval must be at least 1!");
+        }
+        this.syncInterval = syncInterval;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if(channel.size() < HEADER_SIZE) {
+            // A new file, or one whose header was never completely written.
+            reset(0);
+        } else {
+            readHeader();
+            readRecords();
+        }
+    }
+
+
+    /**
+     * Appends a record to the log. The record is only written to the file
+     * once syncInterval records are pending, or sync() is called.
+     */
+    public void append(byte type, byte[] payload) throws IOException {
+        CRC32 checksum = new CRC32();
+        checksum.update(type);
+        checksum.update(payload);
+
+        pendingOutput.writeInt(payload.length);
+        pendingOutput.writeByte(type);
+        pendingOutput.write(payload);
+        pendingOutput.writeInt((int) checksum.getValue());
+        pendingRecords++;
+        nextSequence++;
+
+        if(pendingRecords >= syncInterval) {
+            sync();
+        }
+    }
+
+    /**
+     * Writes all pending records to the file and forces them to the disk.
+     */
+    public void sync() throws IOException {
+        if(pendingRecords == 0) return;
+
+        ByteBuffer buffer = ByteBuffer.wrap(pendingBytes.toByteArray());
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        pendingBytes.reset();
+        pendingRecords = 0;
+    }
+
+    /**
+     * Removes all records from the log, including pending ones. The next
+     * appended record gets the given sequence number. This is called once a
+     * snapshot that covers every record in the log has been saved.
+     */
+    public void reset(long baseSequence) throws IOException {
+        pendingBytes.reset();
+        pendingRecords = 0;
+
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putLong(baseSequence).flip();
+        while(header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+        channel.position(HEADER_SIZE);
+
+        this.baseSequence = baseSequence;
+        this.nextSequence = baseSequence;
+        recoveredRecords = new ArrayList<>();
+    }
+
+    /**
+     * Returns the sequence number of the first record in the log file.
+     */
+    public long getBaseSequence() {
+        return baseSequence;
+    }
+
+    /**
+     * Returns the sequence number that the next appended record will get.
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Returns the records that were in the file when it was opened, oldest
+     * first. The first of them has the base sequence number.
+     */
+    public List<Record> getRecoveredRecords() {
+        return Collections.unmodifiableList(recoveredRecords);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while(header.hasRemaining()) {
+            channel.read(header, header.position());
+        }
+        header.flip();
+        if(header.getInt() != MAGIC) {
+            throw new IOException("Not a write-ahead log file!");
+        }
+        baseSequence = header.getLong();
+    }
+
+    // Reads records until the end of the file or the first damaged record,
+    // and cuts the file off after the last intact record.
+    private void readRecords() throws IOException {
+        long fileSize = channel.size();
+        long validSize = HEADER_SIZE;
+        channel.position(HEADER_SIZE);
+        // The stream is not closed, since that would close the channel.
+        DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel)));
+
+        try {
+            while(fileSize - validSize >= RECORD_OVERHEAD) {
+                int length = input.readInt();
+                if(length < 0 || length > fileSize - validSize
+                        - RECORD_OVERHEAD) {
+                    break;
+                }
+                byte type = input.readByte();
+                byte[] payload = new byte[length];
+                input.readFully(payload);
+                int storedChecksum = input.readInt();
+
+                CRC32 checksum = new CRC32();
+                checksum.update(type);
+                checksum.update(payload);
+                if((int) checksum.getValue() != storedChecksum) {
+                    break;
+                }
+
+                recoveredRecords.add(new Record(type, payload));
+                validSize += RECORD_OVERHEAD + length;
+            }
+        } catch (EOFException e) {
+            // The file ends inside a record, which is cut off below.
+        }
+
+        if(validSize < fileSize) {
+            channel.truncate(validSize);
+            channel.force(false);
+        }
+        channel.position(validSize);
+        nextSequence = baseSequence + recoveredRecords.size();
+    }
+
+
+    /**
+     * A record that was read back from the log.
+     */
+    public static class Record {
+        private final byte type;
+        private final byte[] payload;
+
+        Record(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package strategy.comparison;
+
+import java.util.function.BiFunction;
+
+/*
+ * The base interface for creating strategy classes that decide the ordering of
+ * the HeapPriorityQueue<E>, i.e. whether it behaves as a min heap or a max
+ * heap.
+ * The upper/parent priority is always passed first, followed by the
+ * lower/child priority. The strategy returns TRUE if this pair satisfies the
+ * heap priorities, otherwise it returns FALSE.
+ *
+ * Priorities are taken and returned as primitives so that comparing two
+ * elements does not allocate any objects. This interface still extends the
+ * BiFunction<Double, Double, Boolean> that the queue used to accept, so that
+ * existing code that treats a comparison strategy as a BiFunction keeps
+ * working.
+ */
+public interface ComparisonStrategy
+        extends BiFunction<Double, Double, Boolean> {
+
+    boolean compare(double parentPriority, double childPriority);
+
+    @Override
+    default Boolean apply(Double parentPriority, Double childPriority) {
+        return compare(parentPriority, childPriority);
+    }
+
+    /**
+     * Returns a strategy with the opposite ordering, which turns a max heap
+     * into a min heap and the other way around.
+     */
+    default ComparisonStrategy reversed() {
+        return (parentPriority, childPriority) ->
+                compare(childPriority, parentPriority);
+    }
+
+    /**
+     * Adapts a BiFunction based comparison strategy to this interface.
+     * Strategies that already implement this interface are returned as is,
+     * so that they do not pay for boxing on every comparison.
+     */
+    static ComparisonStrategy from(
+            BiFunction<Double, Double, Boolean> comparisonFunction) {
+        if(comparisonFunction instanceof ComparisonStrategy) {
+            return (ComparisonStrategy) comparisonFunction;
+        }
+        return (parentPriority, childPriority) ->
+                comparisonFunction.apply(parentPriority, childPriority);
+    }
+}
@@ -1,12 +1,22 @@
 package strategy.comparison;
 
-import java.util.function.BiFunction;
-
-public class MaxComparisonStrategy
-        implements BiFunction<Double, Double, Boolean> {
+public class MaxComparisonStrategy implements ComparisonStrategy {
 
     @Override
-    public Boolean apply(Double x, Double y) {
+    public boolean compare(double x, double y) {
         return x >= y;
     }
+
+    // The strategy has no state, so all of its instances are equal. This
+    // lets queues that were each created with their own strategy objects
+    // share their heaps (see PairingHeapPriorityQueue.meld()).
+    @Override
+    public boolean equals(Object other) {
+        return other != null && other.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
 }
@@ -1,12 +1,21 @@
 package strategy.comparison;
 
-import java.util.function.BiFunction;
-
-public class MinComparisonStrategy
-        implements BiFunction<Double, Double, Boolean> {
+public class MinComparisonStrategy implements ComparisonStrategy {
 
     @Override
-    public Boolean apply(Double x, Double y) {
+    public boolean compare(double x, double y) {
         return x <= y;
     }
+
+    // Like MaxComparisonStrategy, all instances of this stateless strategy
+    // are equal.
+    @Override
+    public boolean equals(Object other) {
+        return other != null && other.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
 }
@@ -1,16 +1,45 @@
 package strategy.priority;
 
+import models.OffHeapStudentStore;
 import models.Student;
+import models.StudentTable;
 
 public class BasicStudentPriorityStrategy
-        implements PriorityStrategy<Student> {
+        implements PriorityStrategy<Student>, ColumnPriorityStrategy,
+        OffHeapPriorityStrategy {
 
     @Override
     public double getPriority(Student student) {
+        return getPriority(student.getGpa(), student.getUnits());
+    }
+
+    @Override
+    public double getPriority(StudentTable table, int row) {
+        return getPriority(table.getGpa(row), table.getUnits(row));
+    }
+
+    @Override
+    public double getPriority(OffHeapStudentStore store, long offset) {
+        return getPriority(store.getGpa(offset), store.getUnits(offset));
+    }
+
+    // The weights are fixed, so all instances of this strategy calculate
+    // the same priorities and are equal. Subclasses are only equal to
+    // instances of their own class.
+    @Override
+    public boolean equals(Object other) {
+        return other != null && other.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    private double getPriority(double gpa, int units) {
         double unitWeight = 0.7;
         double gpaWeight = 0.3;
 
-        return (unitWeight * student.getUnits()) +
-                (gpaWeight * student.getGpa());
+        return (unitWeight * units) + (gpaWeight * gpa);
     }
 }
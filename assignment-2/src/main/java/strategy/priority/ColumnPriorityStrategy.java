@@ -0,0 +1,13 @@
+package strategy.priority;
+
+import models.StudentTable;
+
+/*
+ * The base interface for creating strategy classes that calculate the
+ * priorities of students that are stored in a StudentTable, directly from
+ * its columns, without creating Student objects.
+ * This is used by the RowIdPriorityQueue.
+ */
+public interface ColumnPriorityStrategy {
+    double getPriority(StudentTable table, int row);
+}
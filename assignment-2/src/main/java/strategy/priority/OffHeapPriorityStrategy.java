@@ -0,0 +1,13 @@
+package strategy.priority;
+
+import models.OffHeapStudentStore;
+
+/*
+ * The base interface for creating strategy classes that calculate the
+ * priorities of students that are stored in an OffHeapStudentStore, directly
+ * from their records, without creating Student objects.
+ * This is used by the OffHeapPriorityQueue.
+ */
+public interface OffHeapPriorityStrategy {
+    double getPriority(OffHeapStudentStore store, long offset);
+}
@@ -1,16 +1,45 @@
 package strategy.priority;
 
+import models.OffHeapStudentStore;
 import models.Student;
+import models.StudentTable;
 
 public class WeightedStudentPriorityStrategy
-        implements PriorityStrategy<Student> {
+        implements PriorityStrategy<Student>, ColumnPriorityStrategy,
+        OffHeapPriorityStrategy {
 
     @Override
     public double getPriority(Student student) {
+        return getPriority(student.getGpa(), student.getUnits());
+    }
+
+    @Override
+    public double getPriority(StudentTable table, int row) {
+        return getPriority(table.getGpa(row), table.getUnits(row));
+    }
+
+    @Override
+    public double getPriority(OffHeapStudentStore store, long offset) {
+        return getPriority(store.getGpa(offset), store.getUnits(offset));
+    }
+
+    // Like BasicStudentPriorityStrategy, all instances of this strategy are
+    // equal, but not instances of its subclasses.
+    @Override
+    public boolean equals(Object other) {
+        return other != null && other.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    private double getPriority(double gpa, int units) {
         double unitWeight = 0.7;
         double gpaWeight = 0.3;
 
-        return (gpaWeight * student.getGpa()/student.MAX_GPA)
-                + (unitWeight * student.getUnits()/student.MAX_UNITS);
+        return (gpaWeight * gpa / Student.MAX_GPA)
+                + (unitWeight * units / Student.MAX_UNITS);
     }
 }
@@ -0,0 +1,161 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import helper.TestStudent;
+import models.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockingHeapPriorityQueueTests {
+
+    private BlockingHeapPriorityQueue<Student> studentPriorityQueue;
+    private Student firstPriorityStudent;
+    private Student secondPriorityStudent;
+    private Student thirdPriorityStudent;
+
+
+    @BeforeEach
+    void setUp() throws InvalidInputException {
+        studentPriorityQueue = new BlockingHeapPriorityQueue<>(
+                new MaxComparisonStrategy(),
+                new BasicStudentPriorityStrategy());
+
+        firstPriorityStudent = new TestStudent(3.9, 120);
+        secondPriorityStudent = new TestStudent(3.8, 115);
+        thirdPriorityStudent = new TestStudent(2.8, 90);
+    }
+
+    /*
+     * Test to confirm that take() waits for a student to be added by another
+     * thread, and then returns it.
+     */
+    @Test
+    void takeWaitsForStudentTest() throws InterruptedException {
+        AtomicReference<Student> takenStudent = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                takenStudent.set(studentPriorityQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        // Give the consumer some time to start waiting:
+        Thread.sleep(50);
+        assertNull(takenStudent.get());
+
+        studentPriorityQueue.put(firstPriorityStudent);
+        consumer.join(5000);
+
+        assertSame(firstPriorityStudent, takenStudent.get());
+        assertTrue(studentPriorityQueue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that a timed poll returns null if no student is added
+     * in time, and returns the top student otherwise.
+     */
+    @Test
+    void timedPollTest() throws InterruptedException {
+        assertNull(studentPriorityQueue.poll(10, TimeUnit.MILLISECONDS));
+
+        studentPriorityQueue.put(secondPriorityStudent);
+        studentPriorityQueue.put(firstPriorityStudent);
+        assertSame(firstPriorityStudent,
+                studentPriorityQueue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    /*
+     * Test to confirm that drainTo() moves at most the requested number of
+     * students, in priority order.
+     */
+    @Test
+    void drainToTest() {
+        studentPriorityQueue.addAll(Arrays.asList(thirdPriorityStudent,
+                firstPriorityStudent, secondPriorityStudent));
+        List<Student> drainedStudents = new ArrayList<>();
+
+        assertEquals(2, studentPriorityQueue.drainTo(drainedStudents, 2));
+        assertEquals(Arrays.asList(firstPriorityStudent, secondPriorityStudent),
+                drainedStudents);
+        assertEquals(1, studentPriorityQueue.size());
+
+        assertEquals(1, studentPriorityQueue.drainTo(drainedStudents));
+        assertSame(thirdPriorityStudent, drainedStudents.get(2));
+        assertThrows(IllegalArgumentException.class, () ->
+                studentPriorityQueue.drainTo(studentPriorityQueue));
+    }
+
+    /*
+     * Test to confirm that remove(Object) cancels a single queued student,
+     * and leaves the others in priority order.
+     */
+    @Test
+    void removeStudentTest() {
+        studentPriorityQueue.addAll(Arrays.asList(thirdPriorityStudent,
+                firstPriorityStudent, secondPriorityStudent));
+
+        assertTrue(studentPriorityQueue.remove(firstPriorityStudent));
+        assertFalse(studentPriorityQueue.remove(firstPriorityStudent));
+        assertFalse(studentPriorityQueue.remove("Not a student"));
+        assertFalse(studentPriorityQueue.remove(null));
+        assertEquals(2, studentPriorityQueue.size());
+        assertSame(secondPriorityStudent, studentPriorityQueue.poll());
+        assertSame(thirdPriorityStudent, studentPriorityQueue.poll());
+    }
+
+    /*
+     * Test to confirm that removeIf(), removeAll() and retainAll() remove
+     * the matching students, and leave the others in priority order.
+     */
+    @Test
+    void removeIfTest() {
+        studentPriorityQueue.addAll(Arrays.asList(thirdPriorityStudent,
+                firstPriorityStudent, secondPriorityStudent));
+
+        assertTrue(studentPriorityQueue.removeIf(student ->
+                student == secondPriorityStudent));
+        assertFalse(studentPriorityQueue.removeIf(student ->
+                student == secondPriorityStudent));
+        assertEquals(Arrays.asList(firstPriorityStudent, thirdPriorityStudent),
+                drainAll());
+
+        studentPriorityQueue.addAll(Arrays.asList(thirdPriorityStudent,
+                firstPriorityStudent, secondPriorityStudent));
+        assertTrue(studentPriorityQueue.removeAll(
+                Arrays.asList(thirdPriorityStudent)));
+        assertTrue(studentPriorityQueue.retainAll(
+                Arrays.asList(secondPriorityStudent)));
+        assertEquals(Arrays.asList(secondPriorityStudent), drainAll());
+    }
+
+    /*
+     * Test to confirm that null students are rejected, and that the queue is
+     * unbounded.
+     */
+    @Test
+    void nullStudentAndCapacityTest() {
+        assertThrows(NullPointerException.class, () ->
+                studentPriorityQueue.put(null));
+        assertEquals(Integer.MAX_VALUE,
+                studentPriorityQueue.remainingCapacity());
+    }
+
+
+    private List<Student> drainAll() {
+        List<Student> drainedStudents = new ArrayList<>();
+        studentPriorityQueue.drainTo(drainedStudents);
+        return drainedStudents;
+    }
+}
@@ -0,0 +1,134 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import helper.TestStudent;
+import models.Student;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.comparison.MinComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BucketPriorityQueueTests {
+
+    private PriorityStrategy<Student> unitsPriorityStrategy =
+            Student::getUnits;
+    private Random random = new Random();
+
+    private static final int NUM_STUDENTS = 1000;
+
+
+    /*
+     * Scalable test to confirm that students are removed in the same order
+     * of units as from a HeapPriorityQueue, in a max queue and a min queue,
+     * while students keep being added in between.
+     */
+    @Test
+    void sameOrderAsHeapPriorityQueueTest() throws InvalidInputException {
+        BucketPriorityQueue<Student> maxBucketQueue = new BucketPriorityQueue<>(
+                new MaxComparisonStrategy(), unitsPriorityStrategy,
+                Student.MIN_UNITS, Student.MAX_UNITS);
+        BucketPriorityQueue<Student> minBucketQueue = new BucketPriorityQueue<>(
+                new MinComparisonStrategy(), unitsPriorityStrategy,
+                Student.MIN_UNITS, Student.MAX_UNITS);
+        HeapPriorityQueue<Student> maxHeapQueue = new HeapPriorityQueue<>(
+                new MaxComparisonStrategy(), unitsPriorityStrategy);
+        HeapPriorityQueue<Student> minHeapQueue = new HeapPriorityQueue<>(
+                new MinComparisonStrategy(), unitsPriorityStrategy);
+
+        for(int round = 0; round < 2; round++) {
+            for(int i = 0; i < NUM_STUDENTS; i++) {
+                Student student = generateStudent();
+                maxBucketQueue.add(student);
+                minBucketQueue.add(student);
+                maxHeapQueue.add(student);
+                minHeapQueue.add(student);
+            }
+            assertEquals(maxHeapQueue.size(), maxBucketQueue.size());
+            for(int i = 0; i < NUM_STUDENTS * 3 / 4; i++) {
+                assertEquals(maxHeapQueue.poll().getUnits(),
+                        maxBucketQueue.poll().getUnits());
+                assertEquals(minHeapQueue.poll().getUnits(),
+                        minBucketQueue.poll().getUnits());
+            }
+        }
+
+        while(!maxHeapQueue.isEmpty()) {
+            assertEquals(maxHeapQueue.poll().getUnits(),
+                    maxBucketQueue.poll().getUnits());
+        }
+        assertNull(maxBucketQueue.poll());
+        assertNull(maxBucketQueue.peek());
+        assertTrue(maxBucketQueue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that students with keys outside of the declared range
+     * are still removed in the right order, before or after the buckets.
+     */
+    @Test
+    void outOfRangeKeysTest() throws InvalidInputException {
+        BucketPriorityQueue<Student> bucketQueue = new BucketPriorityQueue<>(
+                new MaxComparisonStrategy(), unitsPriorityStrategy, 50, 100);
+        List<Integer> units = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = generateStudent();
+            units.add(student.getUnits());
+            bucketQueue.add(student);
+        }
+        units.sort((unitsOne, unitsTwo) -> unitsTwo - unitsOne);
+
+        assertEquals(NUM_STUDENTS, bucketQueue.size());
+        int count = 0;
+        for(Student student : bucketQueue) {
+            assertNotNull(student);
+            count++;
+        }
+        assertEquals(NUM_STUDENTS, count);
+        for(int expectedUnits : units) {
+            assertEquals(expectedUnits, bucketQueue.peek().getUnits());
+            assertEquals(expectedUnits, bucketQueue.poll().getUnits());
+        }
+        assertTrue(bucketQueue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that scaled keys keep priorities that are at least
+     * 1 / keyScale apart in order, and that equal keys are removed in the
+     * order in which they were added.
+     */
+    @Test
+    void scaledKeysTest() throws InvalidInputException {
+        BasicStudentPriorityStrategy basicPriorityStrategy =
+                new BasicStudentPriorityStrategy();
+        BucketPriorityQueue<Student> bucketQueue = new BucketPriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy, 0, 1100,
+                10);
+        Student firstEqualStudent = new TestStudent(3.0, 100);
+        Student secondEqualStudent = new TestStudent(3.0, 100);
+        Student highStudent = new TestStudent(3.5, 100);
+
+        bucketQueue.add(firstEqualStudent);
+        bucketQueue.add(secondEqualStudent);
+        bucketQueue.add(highStudent);
+
+        assertSame(highStudent, bucketQueue.poll());
+        assertSame(firstEqualStudent, bucketQueue.poll());
+        assertSame(secondEqualStudent, bucketQueue.poll());
+        assertThrows(IllegalArgumentException.class, () ->
+                new BucketPriorityQueue<>(new MaxComparisonStrategy(),
+                        basicPriorityStrategy, 10, 0));
+    }
+
+
+    private Student generateStudent() throws InvalidInputException {
+        return new TestStudent(random.nextInt(41) / 10.0,
+                random.nextInt(Student.MAX_UNITS + 1));
+    }
+}
@@ -0,0 +1,166 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import helper.TestStudent;
+import models.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.comparison.MinComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentSkipListPriorityQueueTests {
+
+    private ConcurrentSkipListPriorityQueue<Student> studentPriorityQueue;
+    private PriorityStrategy<Student> basicPriorityStrategy;
+
+    private static final int NUM_STUDENTS = 1000;
+    private static final int NUM_THREADS = 8;
+    private static final int MAX_UNITS = 150;
+
+
+    @BeforeEach
+    void setUp() {
+        basicPriorityStrategy = new BasicStudentPriorityStrategy();
+        studentPriorityQueue = new ConcurrentSkipListPriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy);
+    }
+
+    /*
+     * Scalable test to confirm highest priority students are always removed
+     * first when a single thread uses the queue.
+     */
+    @Test
+    void addAndRemoveRandomStudentsTest() throws InvalidInputException {
+        List<Double> priorities = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = generateStudent();
+            priorities.add(basicPriorityStrategy.getPriority(student));
+            studentPriorityQueue.add(student);
+        }
+        priorities.sort(Collections.reverseOrder());
+
+        assertEquals(NUM_STUDENTS, studentPriorityQueue.size());
+        for(double priority : priorities) {
+            assertEquals(priority, basicPriorityStrategy.getPriority(
+                    studentPriorityQueue.peek()));
+            assertEquals(priority, basicPriorityStrategy.getPriority(
+                    studentPriorityQueue.poll()));
+        }
+        assertNull(studentPriorityQueue.poll());
+        assertNull(studentPriorityQueue.peek());
+        assertTrue(studentPriorityQueue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that students with the same priority are removed in the
+     * order in which they were added, in a min queue as well.
+     */
+    @Test
+    void equalPrioritiesFirstInFirstOutTest() throws InvalidInputException {
+        ConcurrentSkipListPriorityQueue<Student> minPriorityQueue =
+                new ConcurrentSkipListPriorityQueue<>(
+                        new MinComparisonStrategy(), basicPriorityStrategy);
+        Student lowStudent = new TestStudent(1.0, 10);
+        Student firstEqualStudent = new TestStudent(3.0, 100);
+        Student secondEqualStudent = new TestStudent(3.0, 100);
+
+        minPriorityQueue.add(firstEqualStudent);
+        minPriorityQueue.add(secondEqualStudent);
+        minPriorityQueue.add(lowStudent);
+
+        assertSame(lowStudent, minPriorityQueue.poll());
+        assertSame(firstEqualStudent, minPriorityQueue.poll());
+        assertSame(secondEqualStudent, minPriorityQueue.poll());
+    }
+
+    /*
+     * Test to confirm that null students are rejected.
+     */
+    @Test
+    void addNullStudentTest() {
+        assertThrows(NullPointerException.class, () ->
+                studentPriorityQueue.add(null));
+    }
+
+    /*
+     * Test to confirm that, with several threads adding and polling at the
+     * same time, every student is polled exactly once.
+     */
+    @Test
+    void concurrentAddAndPollTest() throws Exception {
+        List<Student> students = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS * NUM_THREADS; i++) {
+            students.add(generateStudent());
+        }
+
+        ConcurrentLinkedQueue<Student> polledStudents =
+                new ConcurrentLinkedQueue<>();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for(int t = 0; t < NUM_THREADS; t++) {
+            List<Student> batch = students.subList(t * NUM_STUDENTS,
+                    (t + 1) * NUM_STUDENTS);
+            threads.add(new Thread(() -> {
+                awaitQuietly(startLatch);
+                for(Student student : batch) {
+                    studentPriorityQueue.add(student);
+                    Student polledStudent = studentPriorityQueue.poll();
+                    if(polledStudent != null) {
+                        polledStudents.add(polledStudent);
+                    }
+                }
+            }));
+        }
+        for(Thread thread : threads) {
+            thread.start();
+        }
+        startLatch.countDown();
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        Student remainingStudent;
+        while((remainingStudent = studentPriorityQueue.poll()) != null) {
+            polledStudents.add(remainingStudent);
+        }
+
+        Map<Student, Boolean> seenStudents = new IdentityHashMap<>();
+        for(Student student : polledStudents) {
+            assertNull(seenStudents.put(student, true));
+        }
+        assertEquals(students.size(), seenStudents.size());
+        assertEquals(0, studentPriorityQueue.size());
+    }
+
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Student generateStudent() throws InvalidInputException {
+        Random randomValueGenerator = new Random();
+
+        double randomGpa = randomValueGenerator.nextInt(41) / 10.0;
+        int randomUnits = randomValueGenerator.nextInt(MAX_UNITS + 1);
+
+        return new TestStudent(randomGpa, randomUnits);
+    }
+}
@@ -0,0 +1,343 @@
+package datastructures.priorityqueue;
+
+import command.AddToPriorityQueueCommand;
+import command.BatchPriorityQueueCommand;
+import command.CommandProcessor;
+import command.DurableCommandProcessor;
+import command.RemoveFromPriorityQueueCommand;
+import exceptions.InvalidInputException;
+import models.Student;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.StudentCodec;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EmptyStackException;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DurableCommandProcessorTests {
+
+    private Path directory;
+    private Random random = new Random();
+
+    private static final int NUM_COMMANDS = 200;
+
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("durable-queue");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try(Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /*
+     * Test to confirm that a restarted processor holds the same queue as
+     * before, from the log alone, and can still undo every command.
+     */
+    @Test
+    void restartReplaysLogTest() throws IOException, InvalidInputException {
+        HeapPriorityQueue<Student> queue = newQueue();
+        DurableCommandProcessor<Student> processor = open(queue, 0);
+        executeRandomCommands(processor, queue);
+        processor.close();
+
+        HeapPriorityQueue<Student> restoredQueue = newQueue();
+        DurableCommandProcessor<Student> restoredProcessor =
+                open(restoredQueue, 0);
+        assertEquals(Arrays.asList(queue.toArray()),
+                Arrays.asList(restoredQueue.toArray()));
+
+        undoAll(restoredProcessor, NUM_COMMANDS);
+        assertTrue(restoredQueue.isEmpty());
+        restoredProcessor.close();
+    }
+
+    /*
+     * Test to confirm that the queue and history are restored from the
+     * latest snapshot plus the log records written after it, and that the
+     * undos are also replayed.
+     */
+    @Test
+    void restartFromSnapshotTest() throws IOException, InvalidInputException {
+        HeapPriorityQueue<Student> queue = newQueue();
+        DurableCommandProcessor<Student> processor = open(queue, 30);
+        executeRandomCommands(processor, queue);
+        processor.undo();
+        processor.undo();
+        processor.close();
+
+        HeapPriorityQueue<Student> restoredQueue = newQueue();
+        DurableCommandProcessor<Student> restoredProcessor =
+                open(restoredQueue, 30);
+        assertEquals(Arrays.asList(queue.toArray()),
+                Arrays.asList(restoredQueue.toArray()));
+
+        // The history goes back past the latest snapshot:
+        undoAll(restoredProcessor, NUM_COMMANDS - 2);
+        assertTrue(restoredQueue.isEmpty());
+        restoredProcessor.close();
+    }
+
+    /*
+     * Test to confirm that commands restored from a snapshot undo exactly
+     * the entries that the original commands changed, so the heap stays the
+     * same as in a processor that was never restarted, even when many
+     * students are equal or have equal priorities.
+     */
+    @Test
+    void restoredHistoryUndoesExactEntriesTest()
+            throws IOException, InvalidInputException {
+        HeapPriorityQueue<Student> queue = newQueue();
+        HeapPriorityQueue<Student> inMemoryQueue = newQueue();
+        DurableCommandProcessor<Student> processor = open(queue, 25);
+        CommandProcessor inMemoryProcessor = new CommandProcessor();
+        for(int i = 0; i < NUM_COMMANDS; i++) {
+            if(random.nextInt(3) == 0) {
+                processor.execute(new RemoveFromPriorityQueueCommand<>(queue));
+                inMemoryProcessor.execute(
+                        new RemoveFromPriorityQueueCommand<>(inMemoryQueue));
+            } else {
+                // Only a few different students, so that many are equal:
+                int id = random.nextInt(4);
+                Student student = new Student("Name " + id, "" + id,
+                        "Email " + id, 2.0, random.nextInt(2));
+                processor.execute(new AddToPriorityQueueCommand<>(queue,
+                        student));
+                inMemoryProcessor.execute(new AddToPriorityQueueCommand<>(
+                        inMemoryQueue, student));
+            }
+        }
+        processor.writeSnapshot();
+        processor.close();
+
+        HeapPriorityQueue<Student> restoredQueue = newQueue();
+        DurableCommandProcessor<Student> restoredProcessor =
+                open(restoredQueue, 25);
+        assertEquals(heapArrayOf(inMemoryQueue), heapArrayOf(restoredQueue));
+        for(int i = 0; i < NUM_COMMANDS; i++) {
+            restoredProcessor.undo();
+            inMemoryProcessor.undo();
+            assertEquals(heapArrayOf(inMemoryQueue),
+                    heapArrayOf(restoredQueue));
+        }
+        restoredProcessor.close();
+    }
+
+    /*
+     * Test to confirm that a record that was only partly written when the
+     * process stopped is ignored, and that appending continues after the
+     * last intact record.
+     */
+    @Test
+    void damagedLogTailTest() throws IOException, InvalidInputException {
+        HeapPriorityQueue<Student> queue = newQueue();
+        DurableCommandProcessor<Student> processor = open(queue, 0);
+        for(int i = 0; i < 3; i++) {
+            processor.execute(new AddToPriorityQueueCommand<>(queue,
+                    generateStudent()));
+        }
+        processor.close();
+        Files.write(directory.resolve("commands.wal"),
+                new byte[] {0, 0, 0, 40, 1, 7, 7},
+                StandardOpenOption.APPEND);
+
+        HeapPriorityQueue<Student> restoredQueue = newQueue();
+        processor = open(restoredQueue, 0);
+        assertEquals(3, restoredQueue.size());
+        processor.execute(new AddToPriorityQueueCommand<>(restoredQueue,
+                generateStudent()));
+        processor.close();
+
+        restoredQueue = newQueue();
+        processor = open(restoredQueue, 0);
+        assertEquals(4, restoredQueue.size());
+        processor.close();
+    }
+
+    /*
+     * Test to confirm that records appended after a crash which emptied the
+     * log while it was reset (before its header was written) are numbered
+     * from the snapshot on, and are replayed after the next restart.
+     */
+    @Test
+    void crashDuringLogResetTest() throws IOException, InvalidInputException {
+        HeapPriorityQueue<Student> queue = newQueue();
+        DurableCommandProcessor<Student> processor = open(queue, 0);
+        for(int i = 0; i < 5; i++) {
+            processor.execute(new AddToPriorityQueueCommand<>(queue,
+                    generateStudent()));
+        }
+        processor.writeSnapshot();
+        processor.close();
+        Files.write(directory.resolve("commands.wal"), new byte[0]);
+
+        HeapPriorityQueue<Student> restoredQueue = newQueue();
+        processor = open(restoredQueue, 0);
+        assertEquals(5, restoredQueue.size());
+        for(int i = 0; i < 3; i++) {
+            processor.execute(new AddToPriorityQueueCommand<>(restoredQueue,
+                    generateStudent()));
+        }
+        processor.close();
+
+        HeapPriorityQueue<Student> reopenedQueue = newQueue();
+        processor = open(reopenedQueue, 0);
+        assertEquals(Arrays.asList(restoredQueue.toArray()),
+                Arrays.asList(reopenedQueue.toArray()));
+        assertEquals(8, reopenedQueue.size());
+        processor.close();
+    }
+
+    /*
+     * Test to confirm that an undo past the history fails without being
+     * logged, and that the processor can still be reopened afterwards.
+     */
+    @Test
+    void undoPastHistoryTest() throws IOException, InvalidInputException {
+        HeapPriorityQueue<Student> queue = newQueue();
+        DurableCommandProcessor<Student> processor = open(queue, 0);
+        processor.execute(new AddToPriorityQueueCommand<>(queue,
+                generateStudent()));
+        processor.undo();
+        assertThrows(EmptyStackException.class, processor::undo);
+        processor.execute(new AddToPriorityQueueCommand<>(queue,
+                generateStudent()));
+        processor.close();
+
+        HeapPriorityQueue<Student> restoredQueue = newQueue();
+        DurableCommandProcessor<Student> restoredProcessor =
+                open(restoredQueue, 0);
+        assertEquals(Arrays.asList(queue.toArray()),
+                Arrays.asList(restoredQueue.toArray()));
+        restoredProcessor.undo();
+        assertTrue(restoredQueue.isEmpty());
+        restoredProcessor.close();
+    }
+
+    /*
+     * Test to confirm that a processor with a bounded history only keeps,
+     * saves and restores its latest commands, and cannot be reopened with a
+     * smaller history if the log undoes an older command.
+     */
+    @Test
+    void boundedHistoryTest() throws IOException, InvalidInputException {
+        HeapPriorityQueue<Student> queue = newQueue();
+        DurableCommandProcessor<Student> processor =
+                new DurableCommandProcessor<>(directory, queue,
+                        new StudentCodec(), 1, 7, 5);
+        for(int i = 0; i < 20; i++) {
+            processor.execute(new AddToPriorityQueueCommand<>(queue,
+                    generateStudent()));
+        }
+        processor.undo();
+        processor.close();
+
+        HeapPriorityQueue<Student> restoredQueue = newQueue();
+        processor = new DurableCommandProcessor<>(directory, restoredQueue,
+                new StudentCodec(), 1, 7, 5);
+        assertEquals(Arrays.asList(queue.toArray()),
+                Arrays.asList(restoredQueue.toArray()));
+        undoAll(processor, 4);
+        assertEquals(15, restoredQueue.size());
+        assertThrows(EmptyStackException.class, processor::undo);
+        processor.close();
+
+        assertThrows(IOException.class, () ->
+                new DurableCommandProcessor<>(directory, newQueue(),
+                        new StudentCodec(), 1, 7, 1));
+    }
+
+    /*
+     * Test to confirm that a processor rejects commands on other queues,
+     * and cannot be opened on a queue that already holds elements.
+     */
+    @Test
+    void invalidQueueTest() throws IOException, InvalidInputException {
+        HeapPriorityQueue<Student> queue = newQueue();
+        DurableCommandProcessor<Student> processor = open(queue, 0);
+        assertThrows(IllegalArgumentException.class, () ->
+                processor.execute(new RemoveFromPriorityQueueCommand<>(
+                        newQueue())));
+        processor.close();
+
+        HeapPriorityQueue<Student> filledQueue = newQueue();
+        filledQueue.add(generateStudent());
+        assertThrows(IllegalArgumentException.class, () ->
+                open(filledQueue, 0));
+    }
+
+
+    private HeapPriorityQueue<Student> newQueue() {
+        return new HeapPriorityQueue<>(new MaxComparisonStrategy(),
+                new BasicStudentPriorityStrategy());
+    }
+
+    private DurableCommandProcessor<Student> open(
+            HeapPriorityQueue<Student> queue, int snapshotInterval)
+            throws IOException {
+        return new DurableCommandProcessor<>(directory, queue,
+                new StudentCodec(), 1, snapshotInterval);
+    }
+
+    // Adds and removes students at random, adding about twice as often, and
+    // sometimes adds and removes a whole batch of students.
+    private void executeRandomCommands(
+            DurableCommandProcessor<Student> processor,
+            HeapPriorityQueue<Student> queue) throws InvalidInputException {
+        for(int i = 0; i < NUM_COMMANDS; i++) {
+            if(random.nextInt(10) == 0) {
+                List<Student> batch = new ArrayList<>();
+                for(int j = random.nextInt(20); j > 0; j--) {
+                    batch.add(generateStudent());
+                }
+                processor.execute(new BatchPriorityQueueCommand<>(queue,
+                        batch, random.nextInt(10)));
+            } else if(random.nextInt(3) == 0) {
+                processor.execute(new RemoveFromPriorityQueueCommand<>(queue));
+            } else {
+                processor.execute(new AddToPriorityQueueCommand<>(queue,
+                        generateStudent()));
+            }
+        }
+    }
+
+    // Returns the students in the order of the heap array.
+    private List<Student> heapArrayOf(HeapPriorityQueue<Student> queue) {
+        List<Student> students = new ArrayList<>();
+        queue.forEach(students::add);
+        return students;
+    }
+
+    private void undoAll(DurableCommandProcessor<Student> processor,
+                         int numCommands) {
+        for(int i = 0; i < numCommands; i++) {
+            processor.undo();
+        }
+    }
+
+    private Student generateStudent() throws InvalidInputException {
+        int id = random.nextInt(1000000);
+        return new Student("Name " + id, "" + id, "Email " + id,
+                random.nextInt(41) / 10.0,
+                random.nextInt(Student.MAX_UNITS + 1));
+    }
+}
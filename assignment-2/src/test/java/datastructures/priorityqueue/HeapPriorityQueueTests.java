@@ -1,6 +1,8 @@
 package datastructures.priorityqueue;
 
 import command.AddToPriorityQueueCommand;
+import command.BatchPriorityQueueCommand;
+import command.CheckpointingCommandProcessor;
 import command.CommandProcessor;
 import command.RemoveFromPriorityQueueCommand;
 import exceptions.InvalidInputException;
@@ -16,9 +18,18 @@ import strategy.priority.WeightedStudentPriorityStrategy;
 
 import java.util.AbstractQueue;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.EmptyStackException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -173,6 +184,28 @@ public class HeapPriorityQueueTests {
                 minPriorityStudent.getName());
     }
 
+    /*
+     * Test to confirm that a plain BiFunction is still accepted as a
+     * comparison strategy, and is adapted to behave like the equivalent
+     * ComparisonStrategy.
+     */
+    @Test
+    void biFunctionComparisonStrategyTest() {
+        BiFunction<Double, Double, Boolean> minFunction = (x, y) -> x <= y;
+        AbstractQueue<Student> minPriorityQueue = new HeapPriorityQueue<>(
+                minFunction, basicPriorityStrategy);
+
+        minPriorityQueue.add(firstPriorityStudent);
+        minPriorityQueue.add(thirdPriorityStudent);
+        minPriorityQueue.add(fourthPriorityStudent);
+        minPriorityQueue.add(secondPriorityStudent);
+
+        assertEquals(fourthPriorityStudent, minPriorityQueue.poll());
+        assertEquals(thirdPriorityStudent, minPriorityQueue.poll());
+        assertEquals(secondPriorityStudent, minPriorityQueue.poll());
+        assertEquals(firstPriorityStudent, minPriorityQueue.poll());
+    }
+
     /*
      * Test to see if students are removed in the expected order.
      */
@@ -321,6 +354,158 @@ public class HeapPriorityQueueTests {
 
     }
 
+    /*
+     * Scalable test to confirm that the iterator returns students in priority
+     * order, for binary as well as d-ary heaps, and leaves the queue as it
+     * was.
+     */
+    @Test
+    void iteratorOrderTest() throws InvalidInputException {
+        List<Student> randomStudentList = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            randomStudentList.add(generateStudent());
+        }
+        List<Student> sortedStudentList = sortStudents(randomStudentList,
+                basicPriorityStrategy);
+
+        for(int arity : new int[] {2, 3, 8}) {
+            HeapPriorityQueue<Student> queue = new HeapPriorityQueue<>(
+                    new MaxComparisonStrategy(), basicPriorityStrategy, arity);
+            queue.addAll(randomStudentList);
+
+            Iterator<Student> iterator = queue.iterator();
+            for(Student currentStudent : sortedStudentList) {
+                assertTrue(iterator.hasNext());
+                assertEquals(basicPriorityStrategy.getPriority(currentStudent),
+                        basicPriorityStrategy.getPriority(iterator.next()));
+            }
+            assertFalse(iterator.hasNext());
+            assertThrows(NoSuchElementException.class, iterator::next);
+            assertEquals(NUM_STUDENTS, queue.size());
+        }
+    }
+
+    /*
+     * Test to confirm that an iterator fails fast if the queue is modified
+     * while it is being used.
+     */
+    @Test
+    void iteratorConcurrentModificationTest() {
+        Iterator<Student> iterator = basicStudentPriorityQueue.iterator();
+        assertEquals(firstPriorityStudent, iterator.next());
+
+        basicStudentPriorityQueue.poll();
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    /*
+     * Scalable test to confirm that sequential and parallel streams over the
+     * queue see every student exactly once.
+     */
+    @Test
+    void streamTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue = new HeapPriorityQueue<>(
+                comparisonStrategy, basicPriorityStrategy);
+        double expectedUnitSum = 0;
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = generateStudent();
+            expectedUnitSum += student.getUnits();
+            queue.add(student);
+        }
+
+        assertEquals(NUM_STUDENTS, queue.stream().count());
+        assertEquals(expectedUnitSum,
+                queue.stream().mapToInt(Student::getUnits).sum());
+        assertEquals(expectedUnitSum,
+                queue.parallelStream().mapToInt(Student::getUnits).sum());
+        assertEquals(NUM_STUDENTS, queue.size());
+    }
+
+    /*
+     * Test to confirm that the ordered stream returns students in priority
+     * order.
+     */
+    @Test
+    void orderedStreamTest() {
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+
+        assertEquals(Arrays.asList(firstPriorityStudent, secondPriorityStudent),
+                queue.orderedStream().limit(2).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(firstPriorityStudent, secondPriorityStudent,
+                thirdPriorityStudent, fourthPriorityStudent),
+                queue.orderedStream().collect(Collectors.toList()));
+    }
+
+    /*
+     * Scalable test to confirm that removeIf() removes exactly the matching
+     * students, detaches their handles, and leaves a valid heap behind.
+     */
+    @Test
+    void removeIfTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue = new HeapPriorityQueue<>(
+                comparisonStrategy, basicPriorityStrategy);
+        List<Student> randomStudentList = new ArrayList<>();
+        List<QueueHandle<Student>> handles = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = generateStudent();
+            randomStudentList.add(student);
+            handles.add(queue.addWithHandle(student));
+        }
+
+        int unitsLimit = MAX_UNITS / 2;
+        assertTrue(queue.removeIf(student -> student.getUnits() < unitsLimit));
+        assertFalse(queue.removeIf(student -> student.getUnits() < unitsLimit));
+        randomStudentList.removeIf(student -> student.getUnits() < unitsLimit);
+        assertEquals(randomStudentList.size(), queue.size());
+
+        for(QueueHandle<Student> handle : handles) {
+            assertEquals(handle.getElement().getUnits() >= unitsLimit,
+                    handle.isQueued());
+        }
+        for(Student currentStudent : sortStudents(randomStudentList,
+                basicPriorityStrategy)) {
+            assertEquals(basicPriorityStrategy.getPriority(currentStudent),
+                    basicPriorityStrategy.getPriority(queue.poll()));
+        }
+    }
+
+    /*
+     * Test to confirm that forEach() visits every student once, and that
+     * offer() adds students to the queue.
+     */
+    @Test
+    void forEachAndOfferTest() throws InvalidInputException {
+        assertTrue(basicStudentPriorityQueue.offer(new TestStudent(1.0, 10)));
+
+        List<Student> visitedStudents = new ArrayList<>();
+        basicStudentPriorityQueue.forEach(visitedStudents::add);
+
+        assertEquals(5, visitedStudents.size());
+        assertTrue(visitedStudents.contains(firstPriorityStudent));
+        assertTrue(visitedStudents.contains(fourthPriorityStudent));
+
+        // The action is stopped right after it first changes the queue:
+        List<Student> visitedBeforeChange = new ArrayList<>();
+        assertThrows(ConcurrentModificationException.class, () ->
+                basicStudentPriorityQueue.forEach(student -> {
+                    visitedBeforeChange.add(student);
+                    basicStudentPriorityQueue.poll();
+                }));
+        assertEquals(1, visitedBeforeChange.size());
+    }
+
+    /*
+     * Test to confirm that contains() finds students that are queued, and
+     * only those.
+     */
+    @Test
+    void containsTest() throws InvalidInputException {
+        assertTrue(basicStudentPriorityQueue.contains(thirdPriorityStudent));
+        assertFalse(basicStudentPriorityQueue.contains(
+                new TestStudent(1.0, 10)));
+    }
+
     /*
      * Scalable test to confirm highest priority students are always removed
      * first.
@@ -415,6 +600,533 @@ public class HeapPriorityQueueTests {
         assertEquals(manavStudent, basicStudentPriorityQueue.peek());
     }
 
+    /*
+     * Scalable test to confirm that a queue built from a collection, and then
+     * extended with both a small and a large batch of students, removes all
+     * students in the expected order.
+     */
+    @Test
+    void bulkConstructionAndAddAllTest() throws InvalidInputException {
+        List<Student> allStudents = new ArrayList<>();
+        List<Student> initialStudents = new ArrayList<>();
+        List<Student> smallBatch = new ArrayList<>();
+        List<Student> largeBatch = new ArrayList<>();
+
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            initialStudents.add(generateStudent());
+        }
+        for(int i = 0; i < 10; i++) {
+            smallBatch.add(generateStudent());
+        }
+        for(int i = 0; i < 2 * NUM_STUDENTS; i++) {
+            largeBatch.add(generateStudent());
+        }
+        allStudents.addAll(initialStudents);
+        allStudents.addAll(smallBatch);
+        allStudents.addAll(largeBatch);
+
+        HeapPriorityQueue<Student> queue = new HeapPriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy,
+                initialStudents);
+        assertEquals(NUM_STUDENTS, queue.size());
+        assertTrue(queue.addAll(smallBatch));
+        assertTrue(queue.addAll(largeBatch));
+        assertFalse(queue.addAll(new ArrayList<>()));
+        assertEquals(allStudents.size(), queue.size());
+
+        for(Student currentStudent : sortStudents(allStudents,
+                basicPriorityStrategy)) {
+            assertEquals(basicPriorityStrategy.getPriority(currentStudent),
+                    basicPriorityStrategy.getPriority(queue.poll()));
+        }
+    }
+
+    /*
+     * Scalable test to confirm that d-ary heaps remove students in the same
+     * order as the default binary heap, for a few different arities.
+     */
+    @Test
+    void addAndRemoveRandomStudentsDaryHeapTest()
+            throws InvalidInputException {
+        List<Student> randomStudentList = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            randomStudentList.add(generateStudent());
+        }
+        List<Student> sortedStudentList = sortStudents(randomStudentList,
+                basicPriorityStrategy);
+
+        for(int arity : new int[] {3, 4, 8}) {
+            HeapPriorityQueue<Student> daryQueue = new HeapPriorityQueue<>(
+                    new MaxComparisonStrategy(), basicPriorityStrategy, arity);
+            daryQueue.addAll(randomStudentList);
+
+            for(Student currentStudent : sortedStudentList) {
+                assertEquals(basicPriorityStrategy.getPriority(currentStudent),
+                        basicPriorityStrategy.getPriority(daryQueue.poll()));
+            }
+            assertNull(daryQueue.poll());
+        }
+
+        assertThrows(IllegalArgumentException.class, () ->
+                new HeapPriorityQueue<>(new MaxComparisonStrategy(),
+                        basicPriorityStrategy, 1));
+    }
+
+    /*
+     * Test to confirm that a processor with a bounded history can only undo
+     * its latest commands.
+     */
+    @Test
+    void boundedHistoryTest() throws InvalidInputException {
+        CommandProcessor processor = new CommandProcessor(3);
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+
+        for(int i = 0; i < 5; i++) {
+            processor.execute(new AddToPriorityQueueCommand<>(queue,
+                    generateStudent()));
+        }
+        processor.undo();
+        processor.undo();
+        processor.undo();
+
+        assertEquals(6, queue.size());
+        assertThrows(EmptyStackException.class, processor::undo);
+        assertEquals(6, queue.size());
+    }
+
+    /*
+     * Test to confirm that the oldest commands are dropped once the total
+     * weight of the history would exceed the limit.
+     */
+    @Test
+    void weightedHistoryTest() throws InvalidInputException {
+        CommandProcessor processor = new CommandProcessor(10,
+                command -> command instanceof BatchPriorityQueueCommand
+                        ? 8 : 1);
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+
+        processor.execute(new AddToPriorityQueueCommand<>(queue,
+                generateStudent()));
+        processor.execute(new AddToPriorityQueueCommand<>(queue,
+                generateStudent()));
+        processor.execute(new AddToPriorityQueueCommand<>(queue,
+                generateStudent()));
+        processor.execute(new BatchPriorityQueueCommand<>(queue,
+                Arrays.asList(generateStudent(), generateStudent()), 0));
+
+        // The first addition was dropped to make room for the batch:
+        processor.undo();
+        processor.undo();
+        processor.undo();
+        assertEquals(5, queue.size());
+        assertThrows(EmptyStackException.class, processor::undo);
+    }
+
+    /*
+     * Test to confirm that once the history has been undone, further undos
+     * restore the checkpoints of the queue, newest first.
+     */
+    @Test
+    void checkpointUndoTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+        CommandProcessor processor =
+                new CheckpointingCommandProcessor<>(queue, 4, 5, 3);
+
+        for(int i = 0; i < 22; i++) {
+            processor.execute(new AddToPriorityQueueCommand<>(queue,
+                    generateStudent()));
+        }
+
+        // The last 4 commands are in the history:
+        for(int i = 0; i < 4; i++) {
+            processor.undo();
+        }
+        assertEquals(4 + 18, queue.size());
+
+        // Then the checkpoints after 15 and 10 commands are restored. The one
+        // after 20 commands is past the current state, and the one after 5
+        // commands was not kept:
+        processor.undo();
+        assertEquals(4 + 15, queue.size());
+        processor.undo();
+        assertEquals(4 + 10, queue.size());
+        assertThrows(EmptyStackException.class, processor::undo);
+
+        // New commands can be undone as usual after a checkpoint was restored:
+        processor.execute(new RemoveFromPriorityQueueCommand<>(queue));
+        processor.undo();
+        assertEquals(4 + 10, queue.size());
+    }
+
+    /*
+     * Test to confirm that restoring a snapshot brings back the exact
+     * contents of the queue, and detaches the handles of the replaced
+     * elements.
+     */
+    @Test
+    void snapshotRestoreTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+        Object[] originalStudents = queue.toArray();
+        QueueSnapshot<Student> snapshot = queue.snapshot();
+
+        QueueHandle<Student> handle = queue.addWithHandle(generateStudent());
+        queue.poll();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            queue.add(generateStudent());
+        }
+        queue.restore(snapshot);
+
+        assertFalse(handle.isQueued());
+        assertArrayEquals(originalStudents, queue.toArray());
+        assertThrows(IllegalArgumentException.class, () ->
+                ((HeapPriorityQueue<Student>) weightedStudentPriorityQueue)
+                        .restore(snapshot));
+        testRemovedStudents(queue);
+    }
+
+    /*
+     * Test to confirm that undoing every command, including an addition that
+     * was followed by removals, restores the original queue.
+     */
+    @Test
+    void undoAllAddAndRemoveTest() throws InvalidInputException {
+        CommandProcessor processor = new CommandProcessor();
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+        Student manavStudent = new Student("Manav Sanghavi", "822549761",
+                "msanghavi7071@sdsu.edu", 4.0, 150);
+
+        processor.execute(new AddToPriorityQueueCommand<>(queue, manavStudent));
+        processor.execute(new RemoveFromPriorityQueueCommand<>(queue));
+        processor.execute(new RemoveFromPriorityQueueCommand<>(queue));
+
+        processor.undo();
+        processor.undo();
+        processor.undo();
+
+        assertEquals(4, queue.size());
+        testRemovedStudents(queue);
+    }
+
+    /*
+     * Test to confirm that undoing an addition removes the exact student that
+     * was added, even if an equal student is queued as well and the heap was
+     * reordered by later operations.
+     */
+    @Test
+    void undoAddRemovesExactElementTest() throws InvalidInputException {
+        CommandProcessor processor = new CommandProcessor();
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+        Student addedStudent = new TestStudent(3.0, 100);
+        Student equalStudent = new TestStudent(3.0, 100);
+
+        queue.add(equalStudent);
+        processor.execute(new AddToPriorityQueueCommand<>(queue, addedStudent));
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            queue.add(generateStudent());
+        }
+        queue.poll();
+
+        processor.undo();
+
+        boolean foundAdded = false;
+        boolean foundEqual = false;
+        for(Object student : queue.toArray()) {
+            foundAdded |= student == addedStudent;
+            foundEqual |= student == equalStudent;
+        }
+        assertFalse(foundAdded);
+        assertTrue(foundEqual);
+    }
+
+    /*
+     * Test to confirm that a batch command removes the top priority students
+     * after adding its students, and that a single undo puts back exactly
+     * the students that were queued before. Both a large batch (which
+     * rebuilds the heap) and a small one (which does not) are checked.
+     */
+    @Test
+    void batchCommandTest() throws InvalidInputException {
+        CommandProcessor processor = new CommandProcessor();
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            queue.add(generateStudent());
+        }
+        Set<Object> originalStudents = identitySetOf(queue.toArray());
+        double originalTopPriority =
+                basicPriorityStrategy.getPriority(queue.peek());
+
+        for(int batchSize : new int[] {5 * NUM_STUDENTS, 3}) {
+            List<Student> batch = new ArrayList<>();
+            for(int i = 0; i < batchSize; i++) {
+                batch.add(generateStudent());
+            }
+            int removalCount = batchSize / 2 + 1;
+            List<Student> expectedOrder = new ArrayList<>(batch);
+            for(Object student : queue.toArray()) {
+                expectedOrder.add((Student) student);
+            }
+            expectedOrder = sortStudents(expectedOrder, basicPriorityStrategy);
+
+            processor.execute(new BatchPriorityQueueCommand<>(queue, batch,
+                    removalCount));
+            assertEquals(NUM_STUDENTS + 4 + batchSize - removalCount,
+                    queue.size());
+            assertEquals(basicPriorityStrategy.getPriority(
+                    expectedOrder.get(removalCount)),
+                    basicPriorityStrategy.getPriority(queue.peek()));
+
+            processor.undo();
+            assertEquals(originalStudents, identitySetOf(queue.toArray()));
+            assertEquals(originalTopPriority,
+                    basicPriorityStrategy.getPriority(queue.peek()));
+        }
+    }
+
+    /*
+     * Test to confirm that merging moves every student of the other queue
+     * into this one, and that the handles of the moved students now belong
+     * to this queue. Both a large merge (which rebuilds the heap) and a small
+     * one (which does not) are checked.
+     */
+    @Test
+    void mergeFromTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+        List<Student> allStudents = new ArrayList<>(Arrays.asList(
+                firstPriorityStudent, secondPriorityStudent,
+                thirdPriorityStudent, fourthPriorityStudent));
+
+        for(int mergeSize : new int[] {NUM_STUDENTS, 3}) {
+            HeapPriorityQueue<Student> otherQueue = new HeapPriorityQueue<>(
+                    comparisonStrategy, new BasicStudentPriorityStrategy());
+            QueueHandle<Student> handle =
+                    otherQueue.addWithHandle(generateStudent());
+            allStudents.add(handle.getElement());
+            for(int i = 1; i < mergeSize; i++) {
+                Student student = generateStudent();
+                allStudents.add(student);
+                otherQueue.add(student);
+            }
+
+            queue.mergeFrom(otherQueue);
+            assertTrue(otherQueue.isEmpty());
+            assertEquals(allStudents.size(), queue.size());
+            assertThrows(IllegalArgumentException.class, () ->
+                    otherQueue.removeByHandle(handle));
+            assertTrue(queue.removeByHandle(handle));
+            allStudents.remove(handle.getElement());
+        }
+
+        for(Student student : sortStudents(allStudents,
+                basicPriorityStrategy)) {
+            assertEquals(basicPriorityStrategy.getPriority(student),
+                    basicPriorityStrategy.getPriority(queue.poll()));
+        }
+        assertThrows(IllegalArgumentException.class, () ->
+                queue.mergeFrom(queue));
+    }
+
+    /*
+     * Test to confirm that merging recalculates the priorities of the other
+     * queue if its PriorityStrategy is a different object of the same class,
+     * which may calculate different priorities.
+     */
+    @Test
+    void mergeFromSameStrategyClassTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue = new HeapPriorityQueue<>(
+                comparisonStrategy, weightedBasicPriorityStrategy(1));
+        HeapPriorityQueue<Student> otherQueue = new HeapPriorityQueue<>(
+                comparisonStrategy, weightedBasicPriorityStrategy(-1));
+        List<Student> allStudents = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = generateStudent();
+            allStudents.add(student);
+            (i % 2 == 0 ? queue : otherQueue).add(student);
+        }
+
+        queue.mergeFrom(otherQueue);
+        for(Student student : sortStudents(allStudents,
+                basicPriorityStrategy)) {
+            assertEquals(basicPriorityStrategy.getPriority(student),
+                    basicPriorityStrategy.getPriority(queue.poll()));
+        }
+    }
+
+    /*
+     * Test to confirm that a handle removes its element only once, and that a
+     * handle cannot be used with a different queue.
+     */
+    @Test
+    void removeByHandleTest() {
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+        HeapPriorityQueue<Student> otherQueue = new HeapPriorityQueue<>(
+                comparisonStrategy, basicPriorityStrategy);
+
+        QueueHandle<Student> handle = queue.addWithHandle(thirdPriorityStudent);
+        assertTrue(handle.isQueued());
+        assertThrows(IllegalArgumentException.class, () ->
+                otherQueue.removeByHandle(handle));
+
+        assertTrue(queue.removeByHandle(handle));
+        assertFalse(handle.isQueued());
+        assertFalse(queue.removeByHandle(handle));
+        assertEquals(4, queue.size());
+    }
+
+    /*
+     * Test to confirm that a queued student moves to the right position after
+     * their units change and their priority is updated through a handle.
+     */
+    @Test
+    void updatePriorityTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+        Student changingStudent = new TestStudent(3.0, 10);
+        QueueHandle<Student> handle = queue.addWithHandle(changingStudent);
+
+        changingStudent.setUnits(150);
+        assertTrue(queue.updatePriority(handle));
+        assertSame(changingStudent, queue.peek());
+
+        changingStudent.setUnits(0);
+        assertTrue(queue.updatePriority(handle));
+        assertEquals(firstPriorityStudent, queue.peek());
+
+        queue.removeByHandle(handle);
+        assertFalse(queue.updatePriority(handle));
+    }
+
+    /*
+     * Test to confirm that students added without a handle can be
+     * repositioned, one at a time or all at once, after their fields change.
+     */
+    @Test
+    void reprioritizeTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue = new HeapPriorityQueue<>(
+                comparisonStrategy, basicPriorityStrategy);
+        List<Student> randomStudentList = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = generateStudent();
+            randomStudentList.add(student);
+            queue.add(student);
+        }
+
+        Student changingStudent = randomStudentList.get(0);
+        changingStudent.setUnits(MAX_UNITS);
+        changingStudent.setGpa(4.0);
+        assertTrue(queue.reprioritize(changingStudent));
+        // Other students could have the same (maximum) priority:
+        assertEquals(basicPriorityStrategy.getPriority(changingStudent),
+                basicPriorityStrategy.getPriority(queue.peek()));
+
+        Random random = new Random();
+        for(Student student : randomStudentList) {
+            student.setUnits(random.nextInt(MAX_UNITS + 1));
+        }
+        queue.reprioritizeAll();
+
+        for(Student currentStudent : sortStudents(randomStudentList,
+                basicPriorityStrategy)) {
+            assertEquals(basicPriorityStrategy.getPriority(currentStudent),
+                    basicPriorityStrategy.getPriority(queue.poll()));
+        }
+    }
+
+    /*
+     * Test to confirm that queues which track changes reposition students
+     * whose fields change while they are queued, both when a few students
+     * change and when most of them change at once, and in every queue that
+     * holds them.
+     */
+    @Test
+    void changeTrackingTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue = new HeapPriorityQueue<>(
+                comparisonStrategy, basicPriorityStrategy);
+        HeapPriorityQueue<Student> minQueue = new HeapPriorityQueue<>(
+                new MinComparisonStrategy(), basicPriorityStrategy);
+        List<Student> randomStudentList = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS / 2; i++) {
+            randomStudentList.add(generateStudent());
+        }
+        queue.addAll(randomStudentList);
+        queue.enableChangeTracking();
+        minQueue.enableChangeTracking();
+        for(int i = 0; i < NUM_STUDENTS / 2; i++) {
+            Student student = generateStudent();
+            randomStudentList.add(student);
+            queue.add(student);
+        }
+        minQueue.addAll(randomStudentList);
+
+        Student changingStudent = randomStudentList.get(0);
+        changingStudent.setGpa(4.0);
+        changingStudent.setUnits(MAX_UNITS);
+        assertEquals(basicPriorityStrategy.getPriority(changingStudent),
+                basicPriorityStrategy.getPriority(queue.peek()));
+        changingStudent.setGpa(0.0);
+        changingStudent.setUnits(0);
+        assertEquals(0.0, basicPriorityStrategy.getPriority(minQueue.peek()));
+
+        Random random = new Random();
+        for(Student student : randomStudentList) {
+            student.setUnits(random.nextInt(MAX_UNITS + 1));
+        }
+        for(int i = 0; i < NUM_STUDENTS / 2; i++) {
+            minQueue.poll();
+        }
+        // Students are changed again below, so the expected priorities are
+        // read before that:
+        double[] sortedPriorities = sortStudents(randomStudentList,
+                basicPriorityStrategy).stream()
+                .mapToDouble(basicPriorityStrategy::getPriority).toArray();
+        for(int i = 0; i < NUM_STUDENTS / 2; i++) {
+            Student student = queue.poll();
+            assertEquals(sortedPriorities[i],
+                    basicPriorityStrategy.getPriority(student));
+            // Removed students are no longer tracked by the queue:
+            student.setUnits(MAX_UNITS);
+            student.setGpa(4.0);
+        }
+
+        queue.disableChangeTracking();
+        for(int i = NUM_STUDENTS / 2; i < NUM_STUDENTS; i++) {
+            assertEquals(sortedPriorities[i],
+                    basicPriorityStrategy.getPriority(queue.poll()));
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that a handle which was detached by restoring a
+     * snapshot while its student had changed is still tracked once it is
+     * reinserted.
+     */
+    @Test
+    void changeTrackingAfterRestoreTest() throws InvalidInputException {
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+        queue.enableChangeTracking();
+        QueueSnapshot<Student> snapshot = queue.snapshot();
+        Student changingStudent = new TestStudent(1.0, 10);
+        QueueHandle<Student> handle = queue.addWithHandle(changingStudent);
+        changingStudent.setUnits(20);
+
+        queue.restore(snapshot);
+        assertFalse(handle.isQueued());
+        queue.reinsert(handle);
+        changingStudent.setGpa(4.0);
+        changingStudent.setUnits(MAX_UNITS);
+        assertSame(changingStudent, queue.peek());
+    }
+
     /*
      * Test to confirm that a student removed from the middle of the Priority
      * Queue, using an index
@@ -450,6 +1162,49 @@ public class HeapPriorityQueueTests {
         }
     }
 
+    /*
+     * Test to confirm that removing the element in the last slot of the heap,
+     * or passing an index outside the heap, leaves the rest of the heap
+     * intact.
+     */
+    @Test
+    void removeAtLastAndInvalidIndexTest() {
+        HeapPriorityQueue<Student> queue =
+                (HeapPriorityQueue<Student>) basicStudentPriorityQueue;
+
+        queue.removeAtIndex(queue.size());
+        queue.removeAtIndex(-1);
+        assertEquals(4, queue.size());
+
+        queue.removeAtIndex(queue.size() - 1);
+        assertEquals(3, queue.size());
+        assertEquals(firstPriorityStudent, queue.poll());
+    }
+
+    /*
+     * Test to confirm that the priority of an element is calculated only once,
+     * when it is added, and never again while the heap is reordered.
+     */
+    @Test
+    void priorityCalculatedOncePerElementTest() throws InvalidInputException {
+        int[] priorityCalls = {0};
+        PriorityStrategy<Student> countingStrategy = student -> {
+            priorityCalls[0]++;
+            return basicPriorityStrategy.getPriority(student);
+        };
+        AbstractQueue<Student> countingQueue = new HeapPriorityQueue<>(
+                comparisonStrategy, countingStrategy);
+
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            countingQueue.add(generateStudent());
+        }
+        while(countingQueue.size() > 0) {
+            countingQueue.poll();
+        }
+
+        assertEquals(NUM_STUDENTS, priorityCalls[0]);
+    }
+
     /*
      * Test to confirm an exception is raised if invalid GPA input is passed.
      */
@@ -488,6 +1243,13 @@ public class HeapPriorityQueueTests {
         return new TestStudent(randomGpa, randomUnits);
     }
 
+    // Every strategy returned by this method is an instance of the same
+    // lambda class, whatever its weight.
+    private PriorityStrategy<Student> weightedBasicPriorityStrategy(
+            double weight) {
+        return student -> weight * basicPriorityStrategy.getPriority(student);
+    }
+
     private List<Student> sortStudents(List<Student> randomStudentList,
                                        PriorityStrategy<Student> strategy) {
         List<Student> sortedStudentList = new ArrayList<>(randomStudentList);
@@ -511,4 +1273,11 @@ public class HeapPriorityQueueTests {
         return sortedStudentList;
     }
 
+    private Set<Object> identitySetOf(Object[] elements) {
+        Set<Object> identitySet =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        identitySet.addAll(Arrays.asList(elements));
+        return identitySet;
+    }
+
 }
\ No newline at end of file
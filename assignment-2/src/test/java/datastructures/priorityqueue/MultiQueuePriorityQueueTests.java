@@ -0,0 +1,164 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import helper.TestStudent;
+import models.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiQueuePriorityQueueTests {
+
+    private PriorityStrategy<Student> basicPriorityStrategy;
+    private List<Student> randomStudentList;
+
+    private static final int NUM_STUDENTS = 1000;
+    private static final int NUM_THREADS = 8;
+    private static final int MAX_UNITS = 150;
+
+
+    @BeforeEach
+    void setUp() throws InvalidInputException {
+        basicPriorityStrategy = new BasicStudentPriorityStrategy();
+        randomStudentList = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            randomStudentList.add(generateStudent());
+        }
+    }
+
+    /*
+     * Test to confirm that a MultiQueue with a single shard behaves exactly
+     * like a regular priority queue, and measures a rank error of 0.
+     */
+    @Test
+    void singleShardIsExactTest() {
+        MultiQueuePriorityQueue<Student> queue = new MultiQueuePriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy, 1);
+        queue.setRankErrorSamplingInterval(1);
+        queue.addAll(randomStudentList);
+
+        List<Double> priorities = new ArrayList<>();
+        for(Student student : randomStudentList) {
+            priorities.add(basicPriorityStrategy.getPriority(student));
+        }
+        priorities.sort(Collections.reverseOrder());
+
+        for(double priority : priorities) {
+            assertEquals(priority,
+                    basicPriorityStrategy.getPriority(queue.poll()));
+        }
+        assertNull(queue.poll());
+        assertEquals(NUM_STUDENTS, queue.getRankErrorSampleCount());
+        assertEquals(0.0, queue.getMeanRankError());
+    }
+
+    /*
+     * Test to confirm that a MultiQueue with several shards returns every
+     * student exactly once, and that its measured rank error stays well below
+     * the size of the queue.
+     */
+    @Test
+    void manyShardsRankErrorTest() {
+        MultiQueuePriorityQueue<Student> queue = new MultiQueuePriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy, 8);
+        queue.setRankErrorSamplingInterval(1);
+        queue.addAll(randomStudentList);
+        assertEquals(NUM_STUDENTS, queue.size());
+
+        Map<Student, Boolean> polledStudents = new IdentityHashMap<>();
+        Student student;
+        while((student = queue.poll()) != null) {
+            assertNull(polledStudents.put(student, true));
+        }
+
+        assertEquals(NUM_STUDENTS, polledStudents.size());
+        assertEquals(0, queue.size());
+        assertTrue(queue.getMeanRankError() < NUM_STUDENTS / 10.0);
+    }
+
+    /*
+     * Test to confirm that, with several threads adding and polling at the
+     * same time, every student is polled exactly once.
+     */
+    @Test
+    void concurrentAddAndPollTest() throws Exception {
+        MultiQueuePriorityQueue<Student> queue = new MultiQueuePriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy);
+        queue.setRankErrorSamplingInterval(100);
+        ConcurrentLinkedQueue<Student> polledStudents =
+                new ConcurrentLinkedQueue<>();
+        List<Student> students = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for(int t = 0; t < NUM_THREADS; t++) {
+            List<Student> batch = new ArrayList<>();
+            for(int i = 0; i < NUM_STUDENTS; i++) {
+                batch.add(new TestStudent(3.0, i % (MAX_UNITS + 1)));
+            }
+            students.addAll(batch);
+            threads.add(new Thread(() -> {
+                for(Student student : batch) {
+                    queue.add(student);
+                    Student polledStudent = queue.poll();
+                    if(polledStudent != null) {
+                        polledStudents.add(polledStudent);
+                    }
+                }
+            }));
+        }
+        for(Thread thread : threads) {
+            thread.start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        Student remainingStudent;
+        while((remainingStudent = queue.poll()) != null) {
+            polledStudents.add(remainingStudent);
+        }
+
+        Map<Student, Boolean> seenStudents = new IdentityHashMap<>();
+        for(Student student : polledStudents) {
+            assertNull(seenStudents.put(student, true));
+        }
+        assertEquals(students.size(), seenStudents.size());
+    }
+
+    /*
+     * Test to confirm that invalid arguments are rejected.
+     */
+    @Test
+    void invalidArgumentsTest() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new MultiQueuePriorityQueue<>(new MaxComparisonStrategy(),
+                        basicPriorityStrategy, 0));
+        MultiQueuePriorityQueue<Student> queue = new MultiQueuePriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy);
+        assertThrows(NullPointerException.class, () -> queue.add(null));
+        assertThrows(IllegalArgumentException.class, () ->
+                queue.setRankErrorSamplingInterval(-1));
+    }
+
+
+    private Student generateStudent() throws InvalidInputException {
+        Random randomValueGenerator = new Random();
+
+        double randomGpa = randomValueGenerator.nextInt(41) / 10.0;
+        int randomUnits = randomValueGenerator.nextInt(MAX_UNITS + 1);
+
+        return new TestStudent(randomGpa, randomUnits);
+    }
+}
@@ -0,0 +1,77 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import models.Student;
+import models.OffHeapStudentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.comparison.MinComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+import strategy.priority.WeightedStudentPriorityStrategy;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapPriorityQueueTests {
+
+    private OffHeapStudentStore studentStore;
+
+    private static final int NUM_STUDENTS = 1000;
+
+
+    @BeforeEach
+    void setUp() throws InvalidInputException {
+        studentStore = new OffHeapStudentStore();
+        Random random = new Random();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            studentStore.addStudent("Name " + i, "RedId " + i, "Email " + i,
+                    random.nextInt(41) / 10.0,
+                    random.nextInt(Student.MAX_UNITS + 1));
+        }
+    }
+
+    /*
+     * Scalable test to confirm that the records are removed in the same
+     * order of priorities as the equivalent students from a
+     * HeapPriorityQueue.
+     */
+    @Test
+    void sameOrderAsHeapPriorityQueueTest() throws InvalidInputException {
+        BasicStudentPriorityStrategy basicStrategy =
+                new BasicStudentPriorityStrategy();
+        WeightedStudentPriorityStrategy weightedStrategy =
+                new WeightedStudentPriorityStrategy();
+
+        OffHeapPriorityQueue basicStoreQueue = new OffHeapPriorityQueue(
+                studentStore, new MaxComparisonStrategy(), basicStrategy);
+        OffHeapPriorityQueue weightedStoreQueue = new OffHeapPriorityQueue(
+                studentStore, new MinComparisonStrategy(), weightedStrategy);
+        HeapPriorityQueue<Student> basicQueue = new HeapPriorityQueue<>(
+                new MaxComparisonStrategy(), basicStrategy);
+        HeapPriorityQueue<Student> weightedQueue = new HeapPriorityQueue<>(
+                new MinComparisonStrategy(), weightedStrategy);
+
+        basicStoreQueue.addAllRecords();
+        for(long record = 0; record < studentStore.size(); record++) {
+            long offset = record * OffHeapStudentStore.RECORD_SIZE;
+            weightedStoreQueue.add(offset);
+            basicQueue.add(studentStore.toStudent(offset));
+            weightedQueue.add(studentStore.toStudent(offset));
+        }
+        assertEquals(NUM_STUDENTS, basicStoreQueue.size());
+
+        while(!basicQueue.isEmpty()) {
+            assertEquals(basicStrategy.getPriority(basicQueue.poll()),
+                    basicStrategy.getPriority(studentStore,
+                            basicStoreQueue.poll()));
+            assertEquals(weightedStrategy.getPriority(weightedQueue.poll()),
+                    weightedStrategy.getPriority(studentStore,
+                            weightedStoreQueue.poll()));
+        }
+        assertTrue(basicStoreQueue.isEmpty());
+        assertEquals(OffHeapPriorityQueue.NO_RECORD, basicStoreQueue.poll());
+        assertEquals(OffHeapPriorityQueue.NO_RECORD, weightedStoreQueue.peek());
+    }
+}
@@ -0,0 +1,144 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import helper.TestStudent;
+import models.Student;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.comparison.MinComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedKeyPriorityQueueTests {
+
+    private PriorityStrategy<Student> basicPriorityStrategy =
+            new BasicStudentPriorityStrategy();
+    private Random random = new Random();
+
+    private static final int NUM_STUDENTS = 1000;
+
+
+    /*
+     * Scalable test to confirm that students are removed in the same order
+     * of priorities as from a HeapPriorityQueue, in a max queue and a min
+     * queue, while students keep being added in between.
+     */
+    @Test
+    void sameOrderAsHeapPriorityQueueTest() throws InvalidInputException {
+        PackedKeyPriorityQueue<Student> maxPackedQueue =
+                new PackedKeyPriorityQueue<>(new MaxComparisonStrategy(),
+                        basicPriorityStrategy);
+        PackedKeyPriorityQueue<Student> minPackedQueue =
+                new PackedKeyPriorityQueue<>(new MinComparisonStrategy(),
+                        basicPriorityStrategy);
+        HeapPriorityQueue<Student> maxHeapQueue = new HeapPriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy);
+        HeapPriorityQueue<Student> minHeapQueue = new HeapPriorityQueue<>(
+                new MinComparisonStrategy(), basicPriorityStrategy);
+
+        for(int round = 0; round < 2; round++) {
+            for(int i = 0; i < NUM_STUDENTS; i++) {
+                Student student = generateStudent();
+                maxPackedQueue.add(student);
+                minPackedQueue.add(student);
+                maxHeapQueue.add(student);
+                minHeapQueue.add(student);
+            }
+            for(int i = 0; i < NUM_STUDENTS * 3 / 4; i++) {
+                assertEquals(basicPriorityStrategy.getPriority(
+                        maxHeapQueue.poll()),
+                        basicPriorityStrategy.getPriority(
+                                maxPackedQueue.poll()));
+                assertEquals(basicPriorityStrategy.getPriority(
+                        minHeapQueue.poll()),
+                        basicPriorityStrategy.getPriority(
+                                minPackedQueue.poll()));
+            }
+        }
+
+        assertEquals(maxHeapQueue.size(), maxPackedQueue.size());
+        while(!maxHeapQueue.isEmpty()) {
+            assertEquals(basicPriorityStrategy.getPriority(
+                    maxHeapQueue.poll()),
+                    basicPriorityStrategy.getPriority(maxPackedQueue.poll()));
+        }
+        assertNull(maxPackedQueue.poll());
+        assertNull(maxPackedQueue.peek());
+    }
+
+    /*
+     * Test to confirm that students with equal priorities are removed in the
+     * order in which they were added, including negative priorities, and
+     * after the sequence numbers have run out.
+     */
+    @Test
+    void firstComeFirstServedTest() throws InvalidInputException {
+        PriorityStrategy<Student> negativeUnitsStrategy =
+                student -> -student.getUnits();
+        PackedKeyPriorityQueue<Student> queue = new PackedKeyPriorityQueue<>(
+                new MaxComparisonStrategy(), negativeUnitsStrategy);
+        // Only a few sequence numbers are left before they run out:
+        queue.nextSequence = PackedKeyPriorityQueue.SEQUENCE_LIMIT - 100;
+
+        List<List<Student>> studentsByUnits = new ArrayList<>();
+        for(int units = 0; units <= 10; units++) {
+            studentsByUnits.add(new ArrayList<>());
+        }
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = new TestStudent(2.0, random.nextInt(11));
+            studentsByUnits.get(student.getUnits()).add(student);
+            queue.add(student);
+        }
+        assertEquals(NUM_STUDENTS, queue.nextSequence);
+
+        for(List<Student> students : studentsByUnits) {
+            for(Student student : students) {
+                assertSame(student, queue.poll());
+            }
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that the iterator visits every student, and fails once
+     * the queue is modified.
+     */
+    @Test
+    void iteratorTest() throws InvalidInputException {
+        PackedKeyPriorityQueue<Student> queue = new PackedKeyPriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy);
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            queue.add(generateStudent());
+        }
+
+        int count = 0;
+        for(Student student : queue) {
+            assertNotNull(student);
+            count++;
+        }
+        assertEquals(NUM_STUDENTS, count);
+
+        Iterator<Student> iterator = queue.iterator();
+        iterator.next();
+        queue.poll();
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+    }
+
+
+    private Student generateStudent() throws InvalidInputException {
+        return new TestStudent(random.nextInt(41) / 10.0,
+                random.nextInt(Student.MAX_UNITS + 1));
+    }
+}
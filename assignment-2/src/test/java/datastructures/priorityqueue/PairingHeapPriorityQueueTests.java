@@ -0,0 +1,232 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import helper.TestStudent;
+import models.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.ComparisonStrategy;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.comparison.MinComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+import strategy.priority.PriorityStrategy;
+import strategy.priority.WeightedStudentPriorityStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PairingHeapPriorityQueueTests {
+
+    private PairingHeapPriorityQueue<Student> studentPriorityQueue;
+    private ComparisonStrategy maxComparisonStrategy;
+    private PriorityStrategy<Student> basicPriorityStrategy;
+
+    private static final int NUM_STUDENTS = 1000;
+    private static final int MAX_UNITS = 150;
+
+
+    @BeforeEach
+    void setUp() {
+        maxComparisonStrategy = new MaxComparisonStrategy();
+        basicPriorityStrategy = new BasicStudentPriorityStrategy();
+        studentPriorityQueue = new PairingHeapPriorityQueue<>(
+                maxComparisonStrategy, basicPriorityStrategy);
+    }
+
+    /*
+     * Scalable test to confirm highest priority students are always removed
+     * first, while students keep being added in between.
+     */
+    @Test
+    void addAndRemoveRandomStudentsTest() throws InvalidInputException {
+        List<Double> priorities = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = generateStudent();
+            priorities.add(basicPriorityStrategy.getPriority(student));
+            studentPriorityQueue.add(student);
+        }
+
+        // Poll half of the students, then add another batch:
+        pollInOrder(priorities, NUM_STUDENTS / 2);
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = generateStudent();
+            priorities.add(basicPriorityStrategy.getPriority(student));
+            studentPriorityQueue.add(student);
+        }
+
+        assertEquals(priorities.size(), studentPriorityQueue.size());
+        pollInOrder(priorities, priorities.size());
+        assertNull(studentPriorityQueue.poll());
+        assertNull(studentPriorityQueue.peek());
+        assertTrue(studentPriorityQueue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that melding moves every student of the other queue
+     * into this one, for queues with the same and with different strategies.
+     */
+    @Test
+    void meldTest() throws InvalidInputException {
+        PairingHeapPriorityQueue<Student> sameStrategyQueue =
+                new PairingHeapPriorityQueue<>(maxComparisonStrategy,
+                        basicPriorityStrategy);
+        PairingHeapPriorityQueue<Student> otherStrategyQueue =
+                new PairingHeapPriorityQueue<>(new MinComparisonStrategy(),
+                        new WeightedStudentPriorityStrategy());
+        List<Double> priorities = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            for(PairingHeapPriorityQueue<Student> queue : List.of(
+                    studentPriorityQueue, sameStrategyQueue,
+                    otherStrategyQueue)) {
+                Student student = generateStudent();
+                priorities.add(basicPriorityStrategy.getPriority(student));
+                queue.add(student);
+            }
+        }
+
+        studentPriorityQueue.meld(sameStrategyQueue);
+        studentPriorityQueue.meld(otherStrategyQueue);
+
+        assertTrue(sameStrategyQueue.isEmpty());
+        assertTrue(otherStrategyQueue.isEmpty());
+        assertEquals(3 * NUM_STUDENTS, studentPriorityQueue.size());
+        pollInOrder(priorities, priorities.size());
+        assertThrows(IllegalArgumentException.class, () ->
+                studentPriorityQueue.meld(studentPriorityQueue));
+    }
+
+    /*
+     * Test to confirm that queues created with their own, but equal,
+     * strategy objects are melded by linking their trees, without
+     * calculating the priorities of the other queue again.
+     */
+    @Test
+    void meldEqualStrategiesTest() throws InvalidInputException {
+        CountingPriorityStrategy priorityStrategy =
+                new CountingPriorityStrategy();
+        CountingPriorityStrategy otherPriorityStrategy =
+                new CountingPriorityStrategy();
+        PairingHeapPriorityQueue<Student> queue =
+                new PairingHeapPriorityQueue<>(new MaxComparisonStrategy(),
+                        priorityStrategy);
+        PairingHeapPriorityQueue<Student> otherQueue =
+                new PairingHeapPriorityQueue<>(new MaxComparisonStrategy(),
+                        otherPriorityStrategy);
+        List<Double> priorities = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            for(PairingHeapPriorityQueue<Student> studentQueue :
+                    List.of(queue, otherQueue)) {
+                Student student = generateStudent();
+                priorities.add(basicPriorityStrategy.getPriority(student));
+                studentQueue.add(student);
+            }
+        }
+
+        queue.meld(otherQueue);
+        assertEquals(NUM_STUDENTS, priorityStrategy.calls);
+        assertEquals(NUM_STUDENTS, otherPriorityStrategy.calls);
+        assertTrue(otherQueue.isEmpty());
+
+        studentPriorityQueue = queue;
+        pollInOrder(priorities, priorities.size());
+        assertTrue(queue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that melding a queue with the opposite order re-adds
+     * its students, even though reversed comparison strategies are all
+     * instances of the same class.
+     */
+    @Test
+    void meldOppositeOrderTest() throws InvalidInputException {
+        ComparisonStrategy minComparisonStrategy =
+                maxComparisonStrategy.reversed();
+        PairingHeapPriorityQueue<Student> maxQueue =
+                new PairingHeapPriorityQueue<>(
+                        minComparisonStrategy.reversed(),
+                        basicPriorityStrategy);
+        PairingHeapPriorityQueue<Student> minQueue =
+                new PairingHeapPriorityQueue<>(minComparisonStrategy,
+                        basicPriorityStrategy);
+        List<Double> priorities = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            for(PairingHeapPriorityQueue<Student> queue :
+                    List.of(maxQueue, minQueue)) {
+                Student student = generateStudent();
+                priorities.add(basicPriorityStrategy.getPriority(student));
+                queue.add(student);
+            }
+        }
+
+        maxQueue.meld(minQueue);
+        studentPriorityQueue = maxQueue;
+        pollInOrder(priorities, priorities.size());
+        assertTrue(maxQueue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that the iterator returns every student once, and
+     * detects changes to the queue.
+     */
+    @Test
+    void iteratorTest() throws InvalidInputException {
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            studentPriorityQueue.add(generateStudent());
+        }
+        studentPriorityQueue.poll();
+
+        int count = 0;
+        for(Student student : studentPriorityQueue) {
+            assertNotNull(student);
+            count++;
+        }
+        assertEquals(NUM_STUDENTS - 1, count);
+
+        Iterator<Student> iterator = studentPriorityQueue.iterator();
+        iterator.next();
+        studentPriorityQueue.add(generateStudent());
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+
+    // Polls the given number of students and checks that they come out in
+    // the order of the highest of the given priorities. The polled
+    // priorities are removed from the list.
+    private void pollInOrder(List<Double> priorities, int count) {
+        priorities.sort(Collections.reverseOrder());
+        for(int i = 0; i < count; i++) {
+            double priority = priorities.remove(0);
+            assertEquals(priority, basicPriorityStrategy.getPriority(
+                    studentPriorityQueue.poll()));
+        }
+    }
+
+    private Student generateStudent() throws InvalidInputException {
+        Random randomValueGenerator = new Random();
+
+        double randomGpa = randomValueGenerator.nextInt(41) / 10.0;
+        int randomUnits = randomValueGenerator.nextInt(MAX_UNITS + 1);
+
+        return new TestStudent(randomGpa, randomUnits);
+    }
+
+
+    // Counts how often it calculates a priority. Like its superclass, all of
+    // its instances are equal.
+    private static class CountingPriorityStrategy
+            extends BasicStudentPriorityStrategy {
+        private int calls = 0;
+
+        @Override
+        public double getPriority(Student student) {
+            calls++;
+            return super.getPriority(student);
+        }
+    }
+}
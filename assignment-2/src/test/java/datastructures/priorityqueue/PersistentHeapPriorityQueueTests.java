@@ -0,0 +1,217 @@
+package datastructures.priorityqueue;
+
+import command.AddToPersistentPriorityQueueCommand;
+import command.CommandProcessor;
+import command.RemoveFromPersistentPriorityQueueCommand;
+import exceptions.InvalidInputException;
+import helper.TestStudent;
+import models.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.comparison.MinComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentHeapPriorityQueueTests {
+
+    private PersistentHeapPriorityQueue<Student> studentPriorityQueue;
+    private PriorityStrategy<Student> basicPriorityStrategy;
+
+    private static final int NUM_STUDENTS = 1000;
+    private static final int NUM_THREADS = 8;
+    private static final int MAX_UNITS = 150;
+
+
+    @BeforeEach
+    void setUp() {
+        basicPriorityStrategy = new BasicStudentPriorityStrategy();
+        studentPriorityQueue = new PersistentHeapPriorityQueue<>(
+                new MaxComparisonStrategy(), basicPriorityStrategy);
+    }
+
+    /*
+     * Scalable test to confirm highest priority students are always removed
+     * first, in a max queue and in a min queue.
+     */
+    @Test
+    void addAndRemoveRandomStudentsTest() throws InvalidInputException {
+        PersistentHeapPriorityQueue<Student> minPriorityQueue =
+                new PersistentHeapPriorityQueue<>(
+                        new MinComparisonStrategy(), basicPriorityStrategy);
+        List<Double> priorities = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = generateStudent();
+            priorities.add(basicPriorityStrategy.getPriority(student));
+            studentPriorityQueue.add(student);
+            minPriorityQueue.add(student);
+        }
+        priorities.sort(Collections.reverseOrder());
+
+        assertEquals(NUM_STUDENTS, studentPriorityQueue.size());
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            double maxPriority = priorities.get(i);
+            double minPriority = priorities.get(NUM_STUDENTS - 1 - i);
+            assertEquals(maxPriority, basicPriorityStrategy.getPriority(
+                    studentPriorityQueue.peek()));
+            assertEquals(maxPriority, basicPriorityStrategy.getPriority(
+                    studentPriorityQueue.poll()));
+            assertEquals(minPriority, basicPriorityStrategy.getPriority(
+                    minPriorityQueue.poll()));
+        }
+        assertNull(studentPriorityQueue.poll());
+        assertNull(studentPriorityQueue.peek());
+        assertTrue(studentPriorityQueue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that a version keeps its contents while the queue is
+     * changed, and that the queue can be set back to it.
+     */
+    @Test
+    void snapshotAndRestoreTest() throws InvalidInputException {
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            studentPriorityQueue.add(generateStudent());
+        }
+        PersistentHeapPriorityQueue.Version<Student> version =
+                studentPriorityQueue.snapshot();
+        Object[] originalStudents = studentPriorityQueue.toArray();
+
+        for(int i = 0; i < NUM_STUDENTS / 2; i++) {
+            studentPriorityQueue.poll();
+            studentPriorityQueue.add(generateStudent());
+            studentPriorityQueue.add(generateStudent());
+        }
+
+        // The version is iterated in priority order, like the queue:
+        List<Student> versionStudents = new ArrayList<>();
+        for(Student student : version) {
+            versionStudents.add(student);
+        }
+        assertEquals(NUM_STUDENTS, version.size());
+        assertArrayEquals(originalStudents, versionStudents.toArray());
+        assertEquals(NUM_STUDENTS * 3 / 2, studentPriorityQueue.size());
+
+        studentPriorityQueue.restore(version);
+        assertArrayEquals(originalStudents, studentPriorityQueue.toArray());
+        assertThrows(IllegalArgumentException.class, () ->
+                new PersistentHeapPriorityQueue<>(new MaxComparisonStrategy(),
+                        basicPriorityStrategy).restore(version));
+    }
+
+    /*
+     * Test to confirm that undoing commands sets the queue back to its
+     * earlier versions.
+     */
+    @Test
+    void undoCommandsTest() throws InvalidInputException {
+        CommandProcessor processor = new CommandProcessor();
+        Student lowStudent = new TestStudent(1.0, 10);
+        Student highStudent = new TestStudent(4.0, 150);
+
+        processor.execute(new AddToPersistentPriorityQueueCommand<>(
+                studentPriorityQueue, lowStudent));
+        processor.execute(new AddToPersistentPriorityQueueCommand<>(
+                studentPriorityQueue, highStudent));
+        processor.execute(new RemoveFromPersistentPriorityQueueCommand<>(
+                studentPriorityQueue));
+        assertSame(lowStudent, studentPriorityQueue.peek());
+
+        processor.undo();
+        assertSame(highStudent, studentPriorityQueue.peek());
+        assertEquals(2, studentPriorityQueue.size());
+        processor.undo();
+        assertSame(lowStudent, studentPriorityQueue.peek());
+        processor.undo();
+        assertTrue(studentPriorityQueue.isEmpty());
+    }
+
+    /*
+     * Test to confirm that null students are rejected.
+     */
+    @Test
+    void addNullStudentTest() {
+        assertThrows(NullPointerException.class, () ->
+                studentPriorityQueue.add(null));
+    }
+
+    /*
+     * Test to confirm that, with several threads adding and polling at the
+     * same time, every student is polled exactly once.
+     */
+    @Test
+    void concurrentAddAndPollTest() throws Exception {
+        List<Student> students = new ArrayList<>();
+        for(int i = 0; i < NUM_STUDENTS * NUM_THREADS; i++) {
+            students.add(generateStudent());
+        }
+
+        ConcurrentLinkedQueue<Student> polledStudents =
+                new ConcurrentLinkedQueue<>();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for(int t = 0; t < NUM_THREADS; t++) {
+            List<Student> batch = students.subList(t * NUM_STUDENTS,
+                    (t + 1) * NUM_STUDENTS);
+            threads.add(new Thread(() -> {
+                awaitQuietly(startLatch);
+                for(Student student : batch) {
+                    studentPriorityQueue.add(student);
+                    Student polledStudent = studentPriorityQueue.poll();
+                    if(polledStudent != null) {
+                        polledStudents.add(polledStudent);
+                    }
+                }
+            }));
+        }
+        for(Thread thread : threads) {
+            thread.start();
+        }
+        startLatch.countDown();
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        Student remainingStudent;
+        while((remainingStudent = studentPriorityQueue.poll()) != null) {
+            polledStudents.add(remainingStudent);
+        }
+
+        Map<Student, Boolean> seenStudents = new IdentityHashMap<>();
+        for(Student student : polledStudents) {
+            assertNull(seenStudents.put(student, true));
+        }
+        assertEquals(students.size(), seenStudents.size());
+        assertEquals(0, studentPriorityQueue.size());
+    }
+
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Student generateStudent() throws InvalidInputException {
+        Random randomValueGenerator = new Random();
+
+        double randomGpa = randomValueGenerator.nextInt(41) / 10.0;
+        int randomUnits = randomValueGenerator.nextInt(MAX_UNITS + 1);
+
+        return new TestStudent(randomGpa, randomUnits);
+    }
+}
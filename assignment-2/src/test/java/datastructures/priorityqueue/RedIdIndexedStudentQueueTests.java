@@ -0,0 +1,122 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import models.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+import strategy.priority.PriorityStrategy;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedIdIndexedStudentQueueTests {
+
+    private RedIdIndexedStudentQueue studentQueue;
+    private PriorityStrategy<Student> priorityStrategy;
+    private Random random = new Random();
+
+    private static final int NUM_STUDENTS = 1000;
+
+
+    @BeforeEach
+    void setUp() {
+        priorityStrategy = new BasicStudentPriorityStrategy();
+        studentQueue = new RedIdIndexedStudentQueue(
+                new MaxComparisonStrategy(), priorityStrategy);
+    }
+
+    /*
+     * Test to confirm that a student can be looked up and removed by
+     * Red ID, and that the remaining students still come out in order of
+     * priority.
+     */
+    @Test
+    void lookupAndRemoveByRedIdTest() throws InvalidInputException {
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            studentQueue.add(generateStudent(i));
+        }
+
+        assertEquals("Name 42", studentQueue.getByRedId("42").getName());
+        assertTrue(studentQueue.containsRedId("42"));
+        assertEquals("Name 42", studentQueue.removeByRedId("42").getName());
+        assertFalse(studentQueue.containsRedId("42"));
+        assertNull(studentQueue.getByRedId("42"));
+        assertNull(studentQueue.removeByRedId("42"));
+        assertEquals(NUM_STUDENTS - 1, studentQueue.size());
+
+        // The remaining students still come out in order of priority, and
+        // are no longer indexed once they are polled:
+        double lastPriority = Double.MAX_VALUE;
+        while(!studentQueue.isEmpty()) {
+            Student student = studentQueue.poll();
+            double priority = priorityStrategy.getPriority(student);
+            assertTrue(priority <= lastPriority);
+            assertFalse(studentQueue.containsRedId(student.getRedId()));
+            lastPriority = priority;
+        }
+    }
+
+    /*
+     * Test to confirm that a second student with a queued Red ID is
+     * rejected, and that the Red ID can be used again once it is removed.
+     */
+    @Test
+    void duplicateRedIdTest() throws InvalidInputException {
+        studentQueue.add(generateStudent(1));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                studentQueue.add(generateStudent(1)));
+        assertEquals(1, studentQueue.size());
+
+        // Once the student is removed, the Red ID can be used again:
+        studentQueue.poll();
+        studentQueue.add(generateStudent(1));
+        assertEquals(1, studentQueue.size());
+    }
+
+    /*
+     * Test to confirm that the queue is reordered after the priority of
+     * a student changes and updatePriority() is called with the Red ID.
+     */
+    @Test
+    void updatePriorityTest() throws InvalidInputException {
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            studentQueue.add(new Student("Name " + i, "" + i, "Email " + i,
+                    0.0, 0));
+        }
+        Student student = studentQueue.getByRedId("500");
+        student.setGpa(Student.MAX_GPA);
+        student.setUnits(Student.MAX_UNITS);
+
+        assertTrue(studentQueue.updatePriority("500"));
+        assertSame(student, studentQueue.peek());
+        assertFalse(studentQueue.updatePriority("Unknown"));
+    }
+
+    /*
+     * Test to confirm that contains() and remove() only match the queued
+     * student, and not another student with the same Red ID.
+     */
+    @Test
+    void containsAndRemoveTest() throws InvalidInputException {
+        Student student = generateStudent(7);
+        studentQueue.add(student);
+
+        assertTrue(studentQueue.contains(student));
+        assertFalse(studentQueue.contains(new Student("Other Name", "7",
+                "Email 7", student.getGpa(), student.getUnits())));
+        assertTrue(studentQueue.remove(student));
+        assertFalse(studentQueue.remove(student));
+        assertTrue(studentQueue.isEmpty());
+    }
+
+
+    private Student generateStudent(int id) throws InvalidInputException {
+        return new Student("Name " + id, "" + id, "Email " + id,
+                random.nextInt(41) / 10.0,
+                random.nextInt(Student.MAX_UNITS + 1));
+    }
+}
@@ -0,0 +1,75 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import models.Student;
+import models.StudentTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.comparison.MinComparisonStrategy;
+import strategy.priority.BasicStudentPriorityStrategy;
+import strategy.priority.WeightedStudentPriorityStrategy;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowIdPriorityQueueTests {
+
+    private StudentTable studentTable;
+
+    private static final int NUM_STUDENTS = 1000;
+
+
+    @BeforeEach
+    void setUp() throws InvalidInputException {
+        studentTable = new StudentTable();
+        Random random = new Random();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            studentTable.addStudent("Name " + i, "RedId " + i, "Email " + i,
+                    random.nextInt(41) / 10.0,
+                    random.nextInt(Student.MAX_UNITS + 1));
+        }
+    }
+
+    /*
+     * Scalable test to confirm that the rows are removed in the same order of
+     * priorities as the equivalent students from a HeapPriorityQueue.
+     */
+    @Test
+    void sameOrderAsHeapPriorityQueueTest() throws InvalidInputException {
+        BasicStudentPriorityStrategy basicStrategy =
+                new BasicStudentPriorityStrategy();
+        WeightedStudentPriorityStrategy weightedStrategy =
+                new WeightedStudentPriorityStrategy();
+
+        RowIdPriorityQueue basicRowQueue = new RowIdPriorityQueue(
+                studentTable, new MaxComparisonStrategy(), basicStrategy);
+        RowIdPriorityQueue weightedRowQueue = new RowIdPriorityQueue(
+                studentTable, new MinComparisonStrategy(), weightedStrategy);
+        HeapPriorityQueue<Student> basicQueue = new HeapPriorityQueue<>(
+                new MaxComparisonStrategy(), basicStrategy);
+        HeapPriorityQueue<Student> weightedQueue = new HeapPriorityQueue<>(
+                new MinComparisonStrategy(), weightedStrategy);
+
+        basicRowQueue.addAllRows();
+        for(int row = 0; row < studentTable.size(); row++) {
+            weightedRowQueue.add(row);
+            basicQueue.add(studentTable.toStudent(row));
+            weightedQueue.add(studentTable.toStudent(row));
+        }
+        assertEquals(NUM_STUDENTS, basicRowQueue.size());
+
+        while(!basicQueue.isEmpty()) {
+            assertEquals(basicStrategy.getPriority(basicQueue.poll()),
+                    basicStrategy.getPriority(studentTable,
+                            basicRowQueue.poll()));
+            assertEquals(weightedStrategy.getPriority(weightedQueue.poll()),
+                    weightedStrategy.getPriority(studentTable,
+                            weightedRowQueue.poll()));
+        }
+        assertTrue(basicRowQueue.isEmpty());
+        assertEquals(RowIdPriorityQueue.NO_ROW, basicRowQueue.poll());
+        assertEquals(RowIdPriorityQueue.NO_ROW, weightedRowQueue.peek());
+    }
+}
@@ -0,0 +1,105 @@
+package datastructures.priorityqueue;
+
+import exceptions.InvalidInputException;
+import helper.TestStudent;
+import models.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import strategy.comparison.MaxComparisonStrategy;
+import strategy.comparison.MinComparisonStrategy;
+import strategy.priority.PriorityStrategy;
+import strategy.priority.WeightedStudentPriorityStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopKCollectorTests {
+
+    private List<Student> students;
+    private double[] sortedPriorities;
+    private PriorityStrategy<Student> weightedPriorityStrategy;
+
+    private static final int NUM_STUDENTS = 100000;
+    private static final int K = 500;
+    private static final int MAX_UNITS = 150;
+
+
+    @BeforeEach
+    void setUp() throws InvalidInputException {
+        weightedPriorityStrategy = new WeightedStudentPriorityStrategy();
+        students = new ArrayList<>();
+        Random randomValueGenerator = new Random();
+        for(int i = 0; i < NUM_STUDENTS; i++) {
+            Student student = new TestStudent(
+                    randomValueGenerator.nextInt(401) / 100.0,
+                    randomValueGenerator.nextInt(MAX_UNITS + 1));
+            students.add(student);
+        }
+        sortedPriorities = students.stream()
+                .mapToDouble(weightedPriorityStrategy::getPriority)
+                .sorted()
+                .toArray();
+    }
+
+    /*
+     * Test to confirm that the top k students are collected in priority
+     * order, for a max queue and a min queue.
+     */
+    @Test
+    void topKTest() {
+        List<Student> maxStudents = students.stream().collect(
+                TopKCollector.topK(K, new MaxComparisonStrategy(),
+                        weightedPriorityStrategy));
+        List<Student> minStudents = students.stream().collect(
+                TopKCollector.topK(K, new MinComparisonStrategy(),
+                        weightedPriorityStrategy));
+
+        assertEquals(K, maxStudents.size());
+        assertEquals(K, minStudents.size());
+        for(int i = 0; i < K; i++) {
+            assertEquals(sortedPriorities[NUM_STUDENTS - 1 - i],
+                    weightedPriorityStrategy.getPriority(maxStudents.get(i)));
+            assertEquals(sortedPriorities[i],
+                    weightedPriorityStrategy.getPriority(minStudents.get(i)));
+        }
+    }
+
+    /*
+     * Test to confirm that merging the partial results of a parallel stream
+     * gives the same top k students.
+     */
+    @Test
+    void parallelTopKTest() {
+        List<Student> topStudents = students.parallelStream().collect(
+                TopKCollector.topK(K, new MaxComparisonStrategy(),
+                        weightedPriorityStrategy));
+
+        assertEquals(K, topStudents.size());
+        for(int i = 0; i < K; i++) {
+            assertEquals(sortedPriorities[NUM_STUDENTS - 1 - i],
+                    weightedPriorityStrategy.getPriority(topStudents.get(i)));
+        }
+    }
+
+    /*
+     * Test to confirm that all students are returned if there are fewer than
+     * k of them, and that no students are returned for a k of 0.
+     */
+    @Test
+    void smallStreamTest() {
+        List<Student> fewStudents = students.subList(0, 10);
+
+        assertEquals(10, fewStudents.stream().collect(TopKCollector.topK(K,
+                new MaxComparisonStrategy(), weightedPriorityStrategy))
+                .size());
+        assertTrue(fewStudents.stream().collect(TopKCollector.topK(0,
+                new MaxComparisonStrategy(), weightedPriorityStrategy))
+                .isEmpty());
+        assertThrows(IllegalArgumentException.class, () ->
+                TopKCollector.topK(-1, new MaxComparisonStrategy(),
+                        weightedPriorityStrategy));
+    }
+}
@@ -0,0 +1,99 @@
+package models;
+
+import exceptions.InvalidInputException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStudentStoreTest {
+
+    private OffHeapStudentStore studentStore;
+    private Student romanoffStudent;
+
+    @BeforeEach
+    void setup() throws InvalidInputException {
+        studentStore = new OffHeapStudentStore();
+        romanoffStudent = new Student("Natasha Romanoff", "789456123",
+                "nromanoff@sdsu.edu", 4.0, 120);
+    }
+
+    /*
+     * Test to confirm that every field of an added student can be read
+     * back from its offset.
+     */
+    @Test
+    void addAndReadStudentTest() throws InvalidInputException {
+        long romanoffOffset = studentStore.addStudent(romanoffStudent);
+        long danversOffset = studentStore.addStudent("Carol Danvers",
+                "321654987", "cdanvers@sdsu.edu", 3.7, 40);
+
+        assertEquals(2, studentStore.size());
+        assertEquals(romanoffStudent, studentStore.toStudent(romanoffOffset));
+        assertEquals("Carol Danvers", studentStore.getName(danversOffset));
+        assertEquals("321654987", studentStore.getRedId(danversOffset));
+        assertEquals("cdanvers@sdsu.edu",
+                studentStore.getEmail(danversOffset));
+        assertEquals(3.7, studentStore.getGpa(danversOffset));
+        assertEquals(40, studentStore.getUnits(danversOffset));
+    }
+
+    /*
+     * Test to confirm that the GPA and units of a stored student can be
+     * changed.
+     */
+    @Test
+    void updateStudentTest() throws InvalidInputException {
+        long offset = studentStore.addStudent(romanoffStudent);
+
+        studentStore.setGpa(offset, 3.2);
+        studentStore.setUnits(offset, 90);
+
+        assertEquals(3.2, studentStore.getGpa(offset));
+        assertEquals(90, studentStore.getUnits(offset));
+    }
+
+    /*
+     * Test to confirm that students are stored correctly on both sides of
+     * the boundary between two segments.
+     */
+    @Test
+    void multipleSegmentsTest() throws InvalidInputException {
+        int numStudents = (1 << 17) + 10;
+        for(int i = 0; i < numStudents; i++) {
+            studentStore.addStudent("Name " + i, "" + i, "Email " + i,
+                    (i % 41) / 10.0, i % 151);
+        }
+
+        assertEquals(numStudents, studentStore.size());
+        for(int i = (1 << 17) - 10; i < numStudents; i++) {
+            long offset = (long) i * OffHeapStudentStore.RECORD_SIZE;
+            assertEquals("Name " + i, studentStore.getName(offset));
+            assertEquals("" + i, studentStore.getRedId(offset));
+            assertEquals((i % 41) / 10.0, studentStore.getGpa(offset));
+            assertEquals(i % 151, studentStore.getUnits(offset));
+        }
+    }
+
+    /*
+     * Test to confirm that invalid students and offsets are rejected
+     * without changing the store.
+     */
+    @Test
+    void invalidInputTest() throws InvalidInputException {
+        long offset = studentStore.addStudent(romanoffStudent);
+
+        assertThrows(InvalidInputException.class, () ->
+                studentStore.addStudent("Name", "Red ID", "Email", 5.8, 120));
+        assertThrows(InvalidInputException.class, () ->
+                studentStore.addStudent("Name", "1234567890123456", "Email",
+                        3.0, 120));
+        assertThrows(InvalidInputException.class, () ->
+                studentStore.setUnits(offset, 160));
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                studentStore.getGpa(offset + 1));
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                studentStore.getGpa(offset + OffHeapStudentStore.RECORD_SIZE));
+        assertEquals(1, studentStore.size());
+    }
+}
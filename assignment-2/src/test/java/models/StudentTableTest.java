@@ -0,0 +1,71 @@
+package models;
+
+import exceptions.InvalidInputException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentTableTest {
+
+    private StudentTable studentTable;
+    private Student romanoffStudent;
+
+    @BeforeEach
+    void setup() throws InvalidInputException {
+        studentTable = new StudentTable();
+        romanoffStudent = new Student("Natasha Romanoff", "789456123",
+                "nromanoff@sdsu.edu", 4.0, 120);
+    }
+
+    /*
+     * Test to confirm that every field of an added student can be read
+     * back from its row.
+     */
+    @Test
+    void addAndReadStudentTest() throws InvalidInputException {
+        int romanoffRow = studentTable.addStudent(romanoffStudent);
+        int danversRow = studentTable.addStudent("Carol Danvers", "321654987",
+                "cdanvers@sdsu.edu", 3.7, 40);
+
+        assertEquals(2, studentTable.size());
+        assertEquals(romanoffStudent, studentTable.toStudent(romanoffRow));
+        assertEquals("Carol Danvers", studentTable.getName(danversRow));
+        assertEquals("321654987", studentTable.getRedId(danversRow));
+        assertEquals("cdanvers@sdsu.edu", studentTable.getEmail(danversRow));
+        assertEquals(3.7, studentTable.getGpa(danversRow));
+        assertEquals(40, studentTable.getUnits(danversRow));
+    }
+
+    /*
+     * Test to confirm that the GPA and units of a stored student can be
+     * changed.
+     */
+    @Test
+    void updateStudentTest() throws InvalidInputException {
+        int row = studentTable.addStudent(romanoffStudent);
+
+        studentTable.setGpa(row, 3.2);
+        studentTable.setUnits(row, 90);
+
+        assertEquals(3.2, studentTable.getGpa(row));
+        assertEquals(90, studentTable.getUnits(row));
+    }
+
+    /*
+     * Test to confirm that invalid students and rows are rejected without
+     * changing the table.
+     */
+    @Test
+    void invalidInputTest() throws InvalidInputException {
+        int row = studentTable.addStudent(romanoffStudent);
+
+        assertThrows(InvalidInputException.class, () ->
+                studentTable.addStudent("Name", "Red ID", "Email", 5.8, 120));
+        assertThrows(InvalidInputException.class, () ->
+                studentTable.setUnits(row, 160));
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                studentTable.getGpa(row + 1));
+        assertEquals(1, studentTable.size());
+    }
+}
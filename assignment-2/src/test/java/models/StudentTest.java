@@ -37,7 +37,30 @@ class StudentTest {
     }
 
     @Test
-    void hashCodeTest() {
-        assertEquals(1339655061, romanoffStudent.hashCode());
+    void hashCodeTest() throws InvalidInputException {
+        Student romanoffStudentAlternate = new Student("Natasha Romanoff",
+                "789456123", "nromanoff@sdsu.edu", 4.0, 120);
+        assertEquals(romanoffStudentAlternate.hashCode(),
+                romanoffStudent.hashCode());
+        assertEquals(romanoffStudent.hashCode(), romanoffStudent.hashCode());
+    }
+
+    /*
+     * The cached hash code has to be recalculated after a setter is called,
+     * so that it stays equal to the hash code of an equal student.
+     */
+    @Test
+    void hashCodeAfterUpdateTest() throws InvalidInputException {
+        int originalHashCode = romanoffStudent.hashCode();
+        romanoffStudent.setGpa(3.2);
+        romanoffStudent.setUnits(90);
+        Student updatedStudent = new Student("Natasha Romanoff", "789456123",
+                "nromanoff@sdsu.edu", 3.2, 90);
+
+        assertEquals(updatedStudent.hashCode(), romanoffStudent.hashCode());
+
+        romanoffStudent.setGpa(4.0);
+        romanoffStudent.setUnits(120);
+        assertEquals(originalHashCode, romanoffStudent.hashCode());
     }
 }
\ No newline at end of file